@@ -2,8 +2,12 @@ package com.maciek.home.applicationservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 //@SpringBootApplication(scanBasePackages = {"boot.registration"}, exclude = JpaRepositoriesAutoConfiguration.class)
 public class ApplicationServiceApplication {
 
@@ -0,0 +1,59 @@
+package com.maciek.home.applicationservice.audit;
+
+import com.maciek.home.applicationservice.config.AuditProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Collects the audit rows of the current transaction and hands them to the {@link AuditWriter} once it commits,
+ * so a rolled back transaction leaves no audit trail and the business transaction does not wait for the inserts.
+ */
+@Component
+public class ApplicationAuditLog {
+
+    private final AuditProperties properties;
+    private final AuditWriter writer;
+
+    public ApplicationAuditLog(AuditProperties properties, AuditWriter writer) {
+        this.properties = properties;
+        this.writer = writer;
+    }
+
+    public boolean isAsync() {
+        return properties.getMode() == AuditProperties.Mode.ASYNC;
+    }
+
+    public void record(Collection<AuditRecord> records) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writer.submit(new Changeset(System.currentTimeMillis(), System.nanoTime(), new ArrayList<>(records)));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.records.addAll(records);
+    }
+
+    private class Pending implements TransactionSynchronization {
+
+        private final List<AuditRecord> records = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            writer.submit(new Changeset(System.currentTimeMillis(), System.nanoTime(), records));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ApplicationAuditLog.this);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.maciek.home.applicationservice.audit;
+
+import com.maciek.home.applicationservice.model.Application;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * Takes the place of the Envers listeners in the asynchronous audit mode, entity writes are recorded in
+ * {@link ApplicationAuditLog} instead of being inserted into the audit tables during the flush.
+ */
+@Component
+public class AuditEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationAuditLog auditLog;
+
+    public AuditEventListener(EntityManagerFactory entityManagerFactory, ApplicationAuditLog auditLog) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.auditLog = auditLog;
+    }
+
+    // Envers registers its own listeners unless hibernate.envers.autoRegisterListeners is off, see AuditConfig
+    @PostConstruct
+    public void register() {
+        if (!auditLog.isAsync()) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Application) {
+            auditLog.record(List.of(AuditRecord.of((Application) event.getEntity(), RevisionType.ADD)));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Application) {
+            auditLog.record(List.of(AuditRecord.of((Application) event.getEntity(), RevisionType.MOD)));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Application) {
+            auditLog.record(List.of(AuditRecord.deleted((Long) event.getId())));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // Still abstract in Hibernate 5.4, only called by the default of the method above
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+}
@@ -0,0 +1,34 @@
+package com.maciek.home.applicationservice.audit;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.State;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.envers.RevisionType;
+
+/**
+ * Row of application_aud, captured in the business transaction and written later.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AuditRecord {
+
+    private final long id;
+    private final RevisionType type;
+    private final String name;
+    private final String content;
+    private final State state;
+    private final String rejectionReason;
+
+    public static AuditRecord of(Application application, RevisionType type) {
+        return new AuditRecord(application.getId(), type, application.getName(), application.getContent(),
+                application.getState(), application.getRejectionReason());
+    }
+
+    // Envers does not keep the data of deleted rows by default, only the fact of removal
+    public static AuditRecord deleted(long id) {
+        return new AuditRecord(id, RevisionType.DEL, null, null, null, null);
+    }
+}
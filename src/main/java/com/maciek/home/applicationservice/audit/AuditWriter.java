@@ -0,0 +1,259 @@
+package com.maciek.home.applicationservice.audit;
+
+import com.maciek.home.applicationservice.config.AuditProperties;
+import com.maciek.home.applicationservice.model.CompressedContentConverter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Background writer of the asynchronous audit mode. Committed changesets wait in a bounded queue and are written
+ * in batches: one REVINFO row per changeset and a single JDBC batch for all of their application_aud rows.
+ * <p>
+ * Audit rows are written at most once: they live only in memory between the commit and the write, so a batch that
+ * still fails after {@value #MAX_ATTEMPTS} attempts is dropped (logged with its application ids and counted in
+ * applications.audit.failed), and a process that dies without closing the context loses its queue. Closing the
+ * context writes everything queued. Use the sync mode where every change needs its audit row.
+ */
+@Slf4j
+@Component
+public class AuditWriter {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final String INSERT_AUDIT_ROW = "insert into application_aud (id, rev, revtype, content, name, rejection_reason, state) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] AUDIT_ROW_TYPES =
+            {Types.BIGINT, Types.INTEGER, Types.TINYINT, Types.BLOB, Types.VARCHAR, Types.VARCHAR, Types.INTEGER};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditProperties properties;
+    private final CompressedContentConverter contentConverter;
+    private final BlockingQueue<Changeset> queue;
+    // Audit rows in the queue, the queue itself bounds changesets
+    private final AtomicInteger queuedRows = new AtomicInteger();
+    private final Timer flushTimer;
+    private final Timer lagTimer;
+    private final Counter overflowCounter;
+    private final Counter failedCounter;
+    // Submitters hold the read lock while they queue, so no changeset is queued after stop() has taken the write lock
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AuditWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       AuditProperties properties, CompressedContentConverter contentConverter,
+                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Called from after-commit callbacks too, where the finished transaction is still bound to the thread
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.contentConverter = contentConverter;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Gauge.builder("applications.audit.queue.depth", queuedRows, AtomicInteger::get)
+                .description("Audit rows committed but not written yet")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("applications.audit.flush")
+                .description("Time to write one batch of audit rows")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("applications.audit.lag")
+                .description("Time from commit until the audit rows are written")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("applications.audit.overflow")
+                .description("Changesets written by the committing thread because the queue stayed full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("applications.audit.failed")
+                .description("Audit rows dropped after repeated write failures")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.getMode() != AuditProperties.Mode.ASYNC) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "audit-writer");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Asynchronous audit writer started, max lag {}", properties.getMaxLag());
+    }
+
+    // Whatever is still queued is written before the context closes, later changesets are written by their submitters
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        stopQueueing();
+        thread.join();
+        drain();
+        log.info("Asynchronous audit writer stopped");
+    }
+
+    public int getQueuedRows() {
+        return queuedRows.get();
+    }
+
+    void submit(Changeset changeset) {
+        int rows = changeset.getRecords().size();
+        boolean queued = false;
+        stopLock.readLock().lock();
+        try {
+            if (running) {
+                queuedRows.addAndGet(rows);
+                queued = queue.offer(changeset, properties.getMaxLag().toNanos(), TimeUnit.NANOSECONDS);
+                if (!queued) {
+                    queuedRows.addAndGet(-rows);
+                    // The writer is behind by more than the allowed lag, write it here at the cost of latency
+                    overflowCounter.increment();
+                }
+            }
+        } catch (InterruptedException e) {
+            queuedRows.addAndGet(-rows);
+            Thread.currentThread().interrupt();
+        } finally {
+            stopLock.readLock().unlock();
+        }
+        if (!queued) {
+            flush(List.of(changeset), false);
+        }
+    }
+
+    private void run() {
+        List<Changeset> batch = new ArrayList<>();
+        // Half of the allowed lag for collecting a batch, the other half for writing it
+        long collectNanos = properties.getMaxLag().toNanos() / 2;
+        while (running || !queue.isEmpty()) {
+            try {
+                Changeset first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                int rows = first.getRecords().size();
+                long deadline = first.getCommittedNanos() + collectNanos;
+                while (rows < properties.getBatchSize()) {
+                    long wait = Math.min(deadline - System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS));
+                    Changeset next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        // Polled in slices, so stopping writes what has been collected without waiting for the deadline
+                        if (wait > 0 && running) {
+                            continue;
+                        }
+                        break;
+                    }
+                    batch.add(next);
+                    rows += next.getRecords().size();
+                }
+                flush(batch, true);
+            } catch (InterruptedException e) {
+                log.warn("Audit writer interrupted with {} changesets queued", queue.size() + batch.size());
+                stopQueueing();
+                if (!batch.isEmpty()) {
+                    flush(batch, true);
+                }
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        drain();
+    }
+
+    private void stopQueueing() {
+        stopLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+    }
+
+    private void drain() {
+        List<Changeset> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest, true);
+        }
+    }
+
+    private void flush(List<Changeset> batch, boolean queued) {
+        int rows = batch.stream().mapToInt(changeset -> changeset.getRecords().size()).sum();
+        if (queued) {
+            queuedRows.addAndGet(-rows);
+        }
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                flushTimer.record(() -> write(batch));
+                long now = System.nanoTime();
+                batch.forEach(changeset -> lagTimer.record(now - changeset.getCommittedNanos(), TimeUnit.NANOSECONDS));
+                log.debug("Wrote {} audit rows of {} revisions", rows, batch.size());
+                return;
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Cannot write {} audit rows, attempt {} of {}", rows, attempt, MAX_ATTEMPTS, e);
+            }
+        }
+        failedCounter.increment(rows);
+        log.error("Dropped {} audit rows of {} revisions after {} attempts, applications without history: {}", rows,
+                batch.size(), MAX_ATTEMPTS, batch.stream()
+                        .flatMap(changeset -> changeset.getRecords().stream())
+                        .map(record -> String.valueOf(record.getId()))
+                        .distinct()
+                        .collect(Collectors.joining(",")));
+    }
+
+    private void write(List<Changeset> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> auditRows = new ArrayList<>();
+            for (Changeset changeset : batch) {
+                int revision = insertRevision(changeset.getCommittedAt());
+                for (AuditRecord record : changeset.getRecords()) {
+                    auditRows.add(new Object[]{record.getId(), revision, record.getType().getRepresentation(),
+                            contentConverter.convertToDatabaseColumn(record.getContent()), record.getName(), record.getRejectionReason(),
+                            record.getState() != null ? record.getState().ordinal() : null});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_AUDIT_ROW, auditRows, AUDIT_ROW_TYPES);
+        });
+    }
+
+    // REVINFO has an identity key, so revisions are inserted one by one to learn their numbers
+    private int insertRevision(long timestamp) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("insert into revinfo (revtstmp) values (?)", new String[]{"rev"});
+            statement.setLong(1, timestamp);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().intValue();
+    }
+}
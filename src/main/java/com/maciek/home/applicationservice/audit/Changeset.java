@@ -0,0 +1,20 @@
+package com.maciek.home.applicationservice.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Audit rows of one committed transaction, they become a single revision.
+ */
+@Getter
+@AllArgsConstructor
+class Changeset {
+
+    // Wall clock time of the commit, stored as the revision timestamp
+    private final long committedAt;
+    // Monotonic time of the commit, measures the lag
+    private final long committedNanos;
+    private final List<AuditRecord> records;
+}
@@ -0,0 +1,188 @@
+package com.maciek.home.applicationservice.bootstrap;
+
+import com.maciek.home.applicationservice.config.SeedProperties;
+import com.maciek.home.applicationservice.model.State;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic applications drawn from the seed distributions: the final state by weight, the lifecycle path that leads
+ * to it, and names and contents of log-normal lengths written from a small business vocabulary, so they compress and
+ * search like real text. Stateless, all randomness comes from the given {@link Random}.
+ */
+class ApplicationGenerator {
+
+    // Length of the name column
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final String[] KINDS = {"bakery", "bookshop", "brewery", "butcher", "cafe", "carpentry", "clinic",
+            "courier", "dairy", "delicatessen", "florist", "forge", "gallery", "garage", "greengrocer", "hostel",
+            "joinery", "kiosk", "laundry", "locksmith", "market", "nursery", "orchard", "pharmacy", "pottery",
+            "printing", "restaurant", "salon", "sawmill", "school", "smithy", "stable", "studio", "tailor", "theatre",
+            "vineyard", "warehouse", "workshop"};
+    private static final String[] QUALIFIERS = {"northern", "southern", "riverside", "harbour", "old", "new", "green",
+            "royal", "family", "central", "village", "city", "mountain", "meadow", "quiet", "little", "golden", "silver"};
+    // Roughly by frequency, earlier words are drawn more often
+    private static final String[] WORDS = {"the", "of", "for", "and", "to", "with", "on", "in", "at", "premises",
+            "licence", "permit", "opening", "hours", "request", "owner", "tenant", "building", "street", "staff",
+            "customers", "approval", "extension", "renewal", "change", "ownership", "seating", "terrace", "signage",
+            "kitchen", "storage", "delivery", "access", "ramp", "ventilation", "heating", "noise", "waste", "recycling",
+            "fire", "safety", "inspection", "documents", "attached", "plan", "floor", "ground", "basement", "yard",
+            "entrance", "corner", "lease", "municipal", "district", "council", "register", "trade", "local",
+            "residents", "neighbours", "weekday", "weekend", "evening", "morning", "season", "outdoor", "indoor",
+            "capacity", "guests", "vehicles", "bicycle", "shelter", "refurbishment", "insurance", "hygiene",
+            "certificate", "equipment", "electrical", "water", "supply", "drainage"};
+    private static final String[] REJECTIONS = {"Missing fire safety certificate", "Incomplete ownership documents",
+            "Premises not approved for trade", "Noise limits exceeded", "Lease expired before opening"};
+
+    private final State[] states;
+    // Cumulative state weights, normalized to end at 1
+    private final double[] thresholds;
+    private final LengthDistribution nameLength;
+    private final LengthDistribution contentLength;
+
+    ApplicationGenerator(SeedProperties properties) {
+        List<Map.Entry<State, Double>> weights = new ArrayList<>();
+        double total = 0;
+        Map<State, Double> configured = properties.getStates().isEmpty() ? SeedProperties.DEFAULT_STATES : properties.getStates();
+        for (Map.Entry<State, Double> weight : configured.entrySet()) {
+            if (weight.getValue() == null || weight.getValue() < 0) {
+                throw new IllegalArgumentException("Missing or negative weight of state " + weight.getKey());
+            }
+            if (weight.getValue() > 0) {
+                weights.add(weight);
+                total += weight.getValue();
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("No state has a positive weight");
+        }
+        states = new State[weights.size()];
+        thresholds = new double[weights.size()];
+        double cumulative = 0;
+        for (int i = 0; i < states.length; i++) {
+            states[i] = weights.get(i).getKey();
+            cumulative += weights.get(i).getValue() / total;
+            thresholds[i] = cumulative;
+        }
+        thresholds[thresholds.length - 1] = 1;
+        if (properties.getNameLength().getMax() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Names are at most " + MAX_NAME_LENGTH + " characters long");
+        }
+        nameLength = new LengthDistribution("name", properties.getNameLength());
+        contentLength = new LengthDistribution("content", properties.getContentLength());
+    }
+
+    GeneratedApplication next(Random random) {
+        State state = state(random);
+        List<State> path = path(state, random);
+        String name = capitalize(text(random, nameLength.sample(random), true));
+        String content = capitalize(text(random, contentLength.sample(random), false));
+        String rejectionReason = state == State.REJECTED ? REJECTIONS[random.nextInt(REJECTIONS.length)] : null;
+        return new GeneratedApplication(name, content, rejectionReason, path);
+    }
+
+    private State state(Random random) {
+        double draw = random.nextDouble();
+        for (int i = 0; i < thresholds.length - 1; i++) {
+            if (draw < thresholds[i]) {
+                return states[i];
+            }
+        }
+        return states[states.length - 1];
+    }
+
+    // States the application went through, following the allowed transitions; rejections come after verifying
+    // or after accepting
+    private static List<State> path(State state, Random random) {
+        List<State> path = new ArrayList<>(4);
+        path.add(State.CREATED);
+        if (state == State.CREATED) {
+            return path;
+        }
+        path.add(State.VERIFIED);
+        boolean accepted = state == State.ACCEPTED || state == State.PUBLISHED || state == State.REJECTED && random.nextBoolean();
+        if (accepted) {
+            path.add(State.ACCEPTED);
+        }
+        if (state == State.PUBLISHED || state == State.REJECTED) {
+            path.add(state);
+        }
+        return path;
+    }
+
+    // Names are a qualifier and a kind of business followed by vocabulary words, contents only vocabulary words
+    private static String text(Random random, int length, boolean name) {
+        StringBuilder text = new StringBuilder(length + 16);
+        if (name) {
+            text.append(QUALIFIERS[random.nextInt(QUALIFIERS.length)]).append(' ')
+                    .append(KINDS[random.nextInt(KINDS.length)]);
+        }
+        while (text.length() < length) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            // Squaring skews the draws towards the start of the vocabulary
+            double draw = random.nextDouble();
+            text.append(WORDS[(int) (draw * draw * WORDS.length)]);
+        }
+        text.setLength(length);
+        // Cut right before a word, a full stop keeps the exact length without a trailing space
+        if (text.charAt(length - 1) == ' ') {
+            text.setCharAt(length - 1, '.');
+        }
+        return text.toString();
+    }
+
+    private static String capitalize(String text) {
+        return text.isEmpty() ? text : Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    private static final class LengthDistribution {
+
+        private final int min;
+        private final int median;
+        private final int max;
+        private final double sigma;
+
+        private LengthDistribution(String name, SeedProperties.Length length) {
+            if (length.getMin() < 1 || length.getMin() > length.getMedian() || length.getMedian() > length.getMax()) {
+                throw new IllegalArgumentException("Lengths of " + name + " need 1 <= min <= median <= max");
+            }
+            this.min = length.getMin();
+            this.median = length.getMedian();
+            this.max = length.getMax();
+            this.sigma = Math.log((double) max / median) / 3;
+        }
+
+        private int sample(Random random) {
+            long length = Math.round(median * Math.exp(sigma * random.nextGaussian()));
+            return (int) Math.max(min, Math.min(max, length));
+        }
+    }
+
+    @Getter
+    static final class GeneratedApplication {
+
+        private final String name;
+        private final String content;
+        private final String rejectionReason;
+        // From CREATED to the final state
+        private final List<State> path;
+
+        private GeneratedApplication(String name, String content, String rejectionReason, List<State> path) {
+            this.name = name;
+            this.content = content;
+            this.rejectionReason = rejectionReason;
+            this.path = path;
+        }
+
+        State getState() {
+            return path.get(path.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.maciek.home.applicationservice.bootstrap;
+
+import com.maciek.home.applicationservice.config.SeedProperties;
+import com.maciek.home.applicationservice.model.CompressedContentConverter;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.sevice.CollectionVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.envers.RevisionType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes synthetic applications straight over JDBC: batches are generated and inserted in parallel, each one in its
+ * own transaction, with ids reserved from the same sequence Hibernate allocates from, so the service keeps creating
+ * applications afterwards. Envers does not see these inserts, the history is written the way the asynchronous audit
+ * writer does it: one revision per lifecycle step of a batch and one JDBC batch of application_aud rows each.
+ */
+@Slf4j
+@Component
+public class ApplicationSeeder {
+
+    private static final String INSERT_APPLICATION = "insert into application (id, name, content, state, rejection_reason, version) "
+            + "values (?, ?, ?, ?, ?, ?)";
+    private static final int[] APPLICATION_TYPES =
+            {Types.BIGINT, Types.VARCHAR, Types.BLOB, Types.INTEGER, Types.VARCHAR, Types.BIGINT};
+    private static final String INSERT_AUDIT_ROW = "insert into application_aud (id, rev, revtype, content, name, rejection_reason, state) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] AUDIT_ROW_TYPES =
+            {Types.BIGINT, Types.INTEGER, Types.TINYINT, Types.BLOB, Types.VARCHAR, Types.VARCHAR, Types.INTEGER};
+    // One pooled-lo block of ids per row, H2 evaluates the sequence once per row of the range
+    private static final String RESERVE_IDS = "select next value for application_seq from system_range(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CompressedContentConverter contentConverter;
+    private final CollectionVersion collectionVersion;
+
+    public ApplicationSeeder(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             CompressedContentConverter contentConverter, CollectionVersion collectionVersion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.contentConverter = contentConverter;
+        this.collectionVersion = collectionVersion;
+    }
+
+    public SeedReport seed(SeedProperties properties) {
+        if (properties.getBatchSize() < 1) {
+            throw new IllegalArgumentException("Seed batch size must be positive");
+        }
+        ApplicationGenerator generator = new ApplicationGenerator(properties);
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors();
+        int blockSize = jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = 'APPLICATION_SEQ'", Integer.class);
+
+        long start = System.nanoTime();
+        // Random seeds are drawn for the batches in order, so the rows do not depend on which thread writes them
+        SplittableRandom seeds = new SplittableRandom(properties.getRandomSeed());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("seed-"));
+        List<Future<long[]>> batches = new ArrayList<>();
+        try {
+            for (long offset = 0; offset < properties.getRows(); offset += properties.getBatchSize()) {
+                int size = (int) Math.min(properties.getBatchSize(), properties.getRows() - offset);
+                Random random = new Random(seeds.nextLong());
+                batches.add(executor.submit(() -> writeBatch(generator, random, size, blockSize, properties.isHistory())));
+            }
+            long revisions = 0;
+            long historyRows = 0;
+            for (Future<long[]> batch : batches) {
+                long[] written = batch.get();
+                revisions += written[0];
+                historyRows += written[1];
+            }
+            SeedReport report = SeedReport.of(properties.getRows(), revisions, historyRows, threads,
+                    Duration.ofNanos(System.nanoTime() - start));
+            log.info("Seeded {} applications with {} history rows in {} ms using {} threads, {} rows/s", report.getRows(),
+                    report.getHistoryRows(), report.getDurationMillis(), threads, report.getRowsPerSecond());
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while seeding applications", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot seed applications", e.getCause());
+        } finally {
+            // Committed batches stay, the ones not started yet are dropped
+            executor.shutdownNow();
+            // The inserts publish no change events, listings cached by clients are stale either way
+            collectionVersion.increment();
+        }
+    }
+
+    // Revisions and audit rows written
+    private long[] writeBatch(ApplicationGenerator generator, Random random, int size, int blockSize, boolean history) {
+        List<ApplicationGenerator.GeneratedApplication> applications = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            applications.add(generator.next(random));
+        }
+        return transactionTemplate.execute(status -> {
+            long[] ids = reserveIds(size, blockSize);
+            List<byte[]> contents = new ArrayList<>(size);
+            List<Object[]> rows = new ArrayList<>(size);
+            int steps = 0;
+            for (int i = 0; i < size; i++) {
+                ApplicationGenerator.GeneratedApplication application = applications.get(i);
+                byte[] content = contentConverter.convertToDatabaseColumn(application.getContent());
+                contents.add(content);
+                // Every transition bumped the version once
+                int transitions = application.getPath().size() - 1;
+                steps = Math.max(steps, transitions + 1);
+                rows.add(new Object[]{ids[i], application.getName(), content, application.getState().ordinal(),
+                        application.getRejectionReason(), transitions});
+            }
+            jdbcTemplate.batchUpdate(INSERT_APPLICATION, rows, APPLICATION_TYPES);
+            if (!history) {
+                return new long[]{0, 0};
+            }
+            long historyRows = 0;
+            for (int step = 0; step < steps; step++) {
+                int revision = insertRevision(System.currentTimeMillis());
+                RevisionType type = step == 0 ? RevisionType.ADD : RevisionType.MOD;
+                List<Object[]> auditRows = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    ApplicationGenerator.GeneratedApplication application = applications.get(i);
+                    if (step < application.getPath().size()) {
+                        State state = application.getPath().get(step);
+                        auditRows.add(new Object[]{ids[i], revision, type.getRepresentation(), contents.get(i),
+                                application.getName(), state == State.REJECTED ? application.getRejectionReason() : null,
+                                state.ordinal()});
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_AUDIT_ROW, auditRows, AUDIT_ROW_TYPES);
+                historyRows += auditRows.size();
+            }
+            return new long[]{steps, historyRows};
+        });
+    }
+
+    // Each sequence value starts a block of ids nobody else gets, the same blocks the id generator hands out
+    private long[] reserveIds(int count, int blockSize) {
+        int blocks = (count + blockSize - 1) / blockSize;
+        List<Long> starts = jdbcTemplate.queryForList(RESERVE_IDS, Long.class, blocks);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = starts.get(i / blockSize) + i % blockSize;
+        }
+        return ids;
+    }
+
+    // REVINFO has an identity key, so revisions are inserted one by one to learn their numbers
+    private int insertRevision(long timestamp) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("insert into revinfo (revtstmp) values (?)", new String[]{"rev"});
+            statement.setLong(1, timestamp);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().intValue();
+    }
+}
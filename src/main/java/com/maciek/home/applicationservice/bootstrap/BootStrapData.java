@@ -1,56 +1,35 @@
 package com.maciek.home.applicationservice.bootstrap;
 
-import com.maciek.home.applicationservice.model.Application;
-import com.maciek.home.applicationservice.model.State;
-import com.maciek.home.applicationservice.repositories.ApplicationRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.maciek.home.applicationservice.config.SeedProperties;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+/**
+ * Seeds the database with synthetic applications at startup, before the service reports it is ready, so the search
+ * index and state counters built then already see them. Sized by {@code applications.seed.*}, never runs under the
+ * "prod" profile.
+ */
+@Slf4j
 @Component
+@Profile("!prod")
 public class BootStrapData implements CommandLineRunner {
 
-    private static final Logger logger = LoggerFactory.getLogger(BootStrapData.class);
+    private final ApplicationSeeder seeder;
+    private final SeedProperties properties;
 
-    private final ApplicationRepository appRepository;
-
-    //    @Autowired
-    public BootStrapData(ApplicationRepository appRepository) {
-        this.appRepository = appRepository;
+    public BootStrapData(ApplicationSeeder seeder, SeedProperties properties) {
+        this.seeder = seeder;
+        this.properties = properties;
     }
 
     @Override
-    public void run(String... args) throws Exception {
-        logger.info("Start BootStrapData");
-        generateInitialApplications(7);
-
-        logger.info("Number of created applications: {}", appRepository.count());
-
-    }
-
-    private void generateInitialApplications(int max) {
-        int iterator = 0;
-        while (iterator < max) {
-            Application application = Application.builder()
-                    .name("New Company application")
-                    .content("Application for establishing a company")
-                    .build();
-
-            if(iterator > 3){
-                application.setState(State.VERIFIED);
-            }
-            logger.debug("Created app {}", application);
-            appRepository.save(application);
-
-            application = Application.builder()
-                    .name("Renew Id-Card application")
-                    .content("Application for a new ID card")
-                    .build();
-
-            logger.debug("Created app {}", application);
-            appRepository.save(application);
-            iterator += 1;
+    public void run(String... args) {
+        if (!properties.isEnabled() || properties.getRows() <= 0) {
+            log.info("Seeding of applications is disabled");
+            return;
         }
+        seeder.seed(properties);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.maciek.home.applicationservice.bootstrap;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class SeedReport {
+
+    private final long rows;
+    // Revisions and application_aud rows, zero without history
+    private final long revisions;
+    private final long historyRows;
+    private final int threads;
+    private final long durationMillis;
+    private final long rowsPerSecond;
+
+    public static SeedReport of(long rows, long revisions, long historyRows, int threads, Duration duration) {
+        // At least a millisecond, so tiny seeds do not divide by zero
+        long millis = Math.max(duration.toMillis(), 1);
+        return new SeedReport(rows, revisions, historyRows, threads, millis, rows * 1000 / millis);
+    }
+}
@@ -0,0 +1,60 @@
+package com.maciek.home.applicationservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors of the asynchronous handlers, reads and writes apart so a burst of one cannot starve the other.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "applications.async", name = "enabled", havingValue = "true")
+public class AsyncConfig {
+
+    public static final String READ_EXECUTOR = "applicationReadExecutor";
+    public static final String WRITE_EXECUTOR = "applicationWriteExecutor";
+
+    @Bean(READ_EXECUTOR)
+    public Executor applicationReadExecutor(AsyncProperties properties, MeterRegistry meterRegistry) {
+        return executor("applications.read", properties.getRead(), properties.isVirtualThreads(), meterRegistry);
+    }
+
+    @Bean(WRITE_EXECUTOR)
+    public Executor applicationWriteExecutor(AsyncProperties properties, MeterRegistry meterRegistry) {
+        return executor("applications.write", properties.getWrite(), properties.isVirtualThreads(), meterRegistry);
+    }
+
+    private Executor executor(String name, AsyncProperties.Pool pool, boolean virtualThreads, MeterRegistry meterRegistry) {
+        if (virtualThreads) {
+            ExecutorService virtual = BoundedVirtualThreadExecutor.newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                log.info("Running {} on virtual threads, at most {} tasks", name, pool.getThreads() + pool.getQueueCapacity());
+                BoundedVirtualThreadExecutor executor =
+                        new BoundedVirtualThreadExecutor(virtual, pool.getThreads() + pool.getQueueCapacity());
+                Gauge.builder("executor.active", executor, BoundedVirtualThreadExecutor::getActive)
+                        .tag("name", name)
+                        .register(meterRegistry);
+                return executor;
+            }
+            log.warn("Virtual threads need JDK 21+, running {} on a platform thread pool", name);
+        }
+        // Fixed size with a bounded queue, a full queue rejects the task instead of growing
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(pool.getThreads(), pool.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pool.getQueueCapacity()), new CustomizableThreadFactory(name + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Exposes executor.queued, executor.active and executor.pool.size tagged with the name
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, name);
+    }
+}
@@ -0,0 +1,44 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.async")
+public class AsyncProperties {
+
+    // Handlers return futures and run on the read/write executors, freeing the servlet thread during the JDBC work
+    private boolean enabled = false;
+
+    // A virtual thread per request on JDK 21+, platform thread pools otherwise
+    private boolean virtualThreads = false;
+
+    // Reads still running after this answer 503, writes 202 as they may still commit
+    private Duration timeout = Duration.ofSeconds(5);
+
+    private Pool read = new Pool(32, 1000);
+    private Pool write = new Pool(8, 200);
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        // Platform threads, or concurrent tasks when running on virtual threads
+        private int threads;
+
+        // Tasks waiting for a thread, requests beyond it are rejected with 503
+        private int queueCapacity;
+
+        public Pool() {
+        }
+
+        public Pool(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
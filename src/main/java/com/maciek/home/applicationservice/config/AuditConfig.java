@@ -0,0 +1,20 @@
+package com.maciek.home.applicationservice.config;
+
+import org.hibernate.envers.boot.internal.EnversIntegrator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AuditConfig {
+
+    // Audit tables stay mapped for AuditReader, only the synchronous Envers listeners are left out
+    @Bean
+    public HibernatePropertiesCustomizer auditListenersCustomizer(AuditProperties properties) {
+        return hibernateProperties -> {
+            if (properties.getMode() == AuditProperties.Mode.ASYNC) {
+                hibernateProperties.put(EnversIntegrator.AUTO_REGISTER, "false");
+            }
+        };
+    }
+}
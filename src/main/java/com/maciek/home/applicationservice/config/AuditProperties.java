@@ -0,0 +1,32 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.audit")
+public class AuditProperties {
+
+    public enum Mode {
+        // Envers writes revisions inside the business transaction
+        SYNC,
+        // Revisions are captured on commit and written in batches by a background writer, at most once: rows that
+        // keep failing to be written, or that are queued when the process dies, are lost
+        ASYNC
+    }
+
+    private Mode mode = Mode.SYNC;
+
+    // Committed transactions waiting for the writer, a full queue makes committing threads wait
+    private int queueCapacity = 10000;
+
+    // Audit rows written by one flush
+    private int batchSize = 500;
+
+    // Longest time a committed change may wait before it is written, past it the committing thread writes it itself
+    private Duration maxLag = Duration.ofSeconds(1);
+}
@@ -0,0 +1,17 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.bulk")
+public class BulkProperties {
+
+    // Ids bound into a single IN (...) list
+    private int chunkSize = 1000;
+
+    // Upper bound for the ids accepted in one request
+    private int maxIds = 10000;
+}
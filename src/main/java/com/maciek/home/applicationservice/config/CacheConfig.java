@@ -0,0 +1,32 @@
+package com.maciek.home.applicationservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// Backs ApplicationNearCache, declared as a CacheManager so actuator lists the cache and binds its metrics
+@Configuration
+public class CacheConfig {
+
+    public static final String APPLICATIONS_CACHE = "applications";
+
+    @Bean
+    public CacheManager cacheManager(NearCacheProperties properties) {
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats();
+        if (properties.getExpireAfterWrite() != null) {
+            caffeine.expireAfterWrite(properties.getExpireAfterWrite());
+        }
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(caffeine);
+        cacheManager.setAllowNullValues(properties.isCacheMissing());
+        // Declared up front, so actuator binds its hit/miss/eviction metrics at startup
+        cacheManager.setCacheNames(List.of(APPLICATIONS_CACHE));
+        return cacheManager;
+    }
+}
@@ -0,0 +1,20 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.zip.Deflater;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.content")
+public class ContentProperties {
+
+    // Shorter contents are stored as plain UTF-8, deflating them saves too little for the time it takes
+    private DataSize compressionThreshold = DataSize.ofBytes(512);
+
+    // Deflater level from 1 (fastest) to 9 (smallest)
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+}
@@ -0,0 +1,37 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.events")
+public class EventsProperties {
+
+    public enum SlowConsumer {
+        // The subscriber is disconnected and resumes from the history with Last-Event-ID
+        DISCONNECT,
+        // The oldest buffered event is dropped, the subscriber sees a gap in the event ids
+        DROP_OLDEST
+    }
+
+    // Committed changes kept for resuming with Last-Event-ID
+    private int historySize = 10000;
+
+    // Events waiting for one subscriber before the slow consumer policy applies
+    private int bufferSize = 256;
+
+    private SlowConsumer slowConsumer = SlowConsumer.DISCONNECT;
+
+    // Open streams, further subscribers are turned away with 503
+    private int maxSubscribers = 10000;
+
+    // Threads writing events to subscribers, they only write to streams that are ready and never wait on a client
+    private int deliveryThreads = 2;
+
+    // Lifetime of one stream, clients reconnect with Last-Event-ID afterwards
+    private Duration timeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,24 @@
+package com.maciek.home.applicationservice.config;
+
+import com.maciek.home.applicationservice.model.ExportFormat;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.export")
+public class ExportProperties {
+
+    // Export files are created here, the directory is created when missing
+    private Path directory = Path.of("exports");
+
+    // Defaults of the scheduled export and of the endpoint when no parameter is given
+    private ExportFormat format = ExportFormat.NDJSON;
+    private boolean gzip = true;
+
+    // Spring cron expression of the scheduled export, "-" disables it
+    private String cron = "-";
+}
@@ -0,0 +1,21 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.import")
+public class ImportProperties {
+
+    // Rows written and committed together, also the number of parsed rows held in memory
+    private int batchSize = 500;
+
+    // Line errors listed in the report, further rejections are only counted
+    private int maxErrors = 1000;
+
+    // Longest line of an upload in characters, never buffered in full. A longer NDJSON line is rejected, a longer CSV
+    // line stops the import, as CSV records may span lines.
+    private int maxLineLength = 1024 * 1024;
+}
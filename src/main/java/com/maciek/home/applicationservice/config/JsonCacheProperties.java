@@ -0,0 +1,18 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.json-cache")
+public class JsonCacheProperties {
+
+    // When off every response serializes the applications again
+    private boolean enabled = true;
+
+    // Total size of the cached JSON, evicted by frequency (W-TinyLFU) once exceeded
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+}
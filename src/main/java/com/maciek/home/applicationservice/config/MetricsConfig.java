@@ -0,0 +1,36 @@
+package com.maciek.home.applicationservice.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Configuration
+public class MetricsConfig {
+
+    // Tags http.server.requests with the controller method, so handlers sharing a URI (e.g. the two imports) are apart
+    @Bean
+    public WebMvcTagsContributor operationTagContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Throwable exception) {
+                return Tags.of(operation(handler));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.of(operation(handler));
+            }
+        };
+    }
+
+    private static Tag operation(Object handler) {
+        return Tag.of("operation", handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethod().getName() : "none");
+    }
+}
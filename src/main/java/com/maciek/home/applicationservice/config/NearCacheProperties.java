@@ -0,0 +1,22 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.cache")
+public class NearCacheProperties {
+
+    // Entries kept by the findById cache, evicted by frequency (W-TinyLFU) once exceeded
+    private long maximumSize = 10000;
+
+    // Time to live of an entry, bounds how long a row changed around the service is served stale; unset for no expiry
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    // Remember ids that were not found, so repeated misses do not hit the database
+    private boolean cacheMissing = true;
+}
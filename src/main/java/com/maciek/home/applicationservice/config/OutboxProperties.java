@@ -0,0 +1,39 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.outbox")
+public class OutboxProperties {
+
+    // Background dispatcher, when off the outbox rows are still written and wait for another instance
+    private boolean enabled = true;
+
+    // Outbox rows claimed and handed to the sink at once
+    private int batchSize = 100;
+
+    // Idle wait between polls, publishes committed by this instance wake the dispatcher earlier
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // Wait before the first retry of a failed delivery, doubled with every further attempt up to the maximum
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    // Deliveries tried before a row is marked failed and left for manual inspection
+    private int maxAttempts = 10;
+
+    // Claimed rows not finished by then are claimed again, e.g. after the claiming instance died
+    private Duration lease = Duration.ofMinutes(1);
+
+    // Delivered rows are deleted after this long
+    private Duration retention = Duration.ofDays(7);
+
+    // Directory of the file sink, created when missing. No default, the sink is left out when it is not set
+    private Path directory;
+}
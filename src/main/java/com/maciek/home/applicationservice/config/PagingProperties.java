@@ -0,0 +1,24 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.paging")
+public class PagingProperties {
+
+    // Page size used when the client does not send a limit
+    private int defaultSize = 10;
+
+    // Upper bound for the limit accepted from the client
+    private int maxSize = 100;
+
+    public int resolve(Integer limit) {
+        if (limit == null || limit < 1) {
+            return defaultSize;
+        }
+        return Math.min(limit, maxSize);
+    }
+}
@@ -0,0 +1,18 @@
+package com.maciek.home.applicationservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.search")
+public class SearchProperties {
+
+    // A word of the name counts as this many occurrences in the content
+    private int nameWeight = 3;
+
+    // Updated and deleted applications leave stale postings behind, the index is rebuilt once they exceed
+    // this share of the live applications
+    private double maxStaleRatio = 0.5;
+}
@@ -0,0 +1,62 @@
+package com.maciek.home.applicationservice.config;
+
+import com.maciek.home.applicationservice.model.State;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "applications.seed")
+public class SeedProperties {
+
+    // Synthetic applications written at startup, never under the "prod" profile
+    private boolean enabled = true;
+
+    private long rows = 14;
+
+    // Used when no state weight is configured at all
+    public static final Map<State, Double> DEFAULT_STATES = Collections.unmodifiableMap(new EnumMap<>(Map.of(
+            State.CREATED, 0.4, State.VERIFIED, 0.2, State.ACCEPTED, 0.1, State.PUBLISHED, 0.2, State.REJECTED, 0.1)));
+
+    // Relative weights of the final states, states left out are not generated. Starts empty, as Boot merges the
+    // configured entries into the map it finds, and a filled default would bring the left out states back.
+    private Map<State, Double> states = new EnumMap<>(State.class);
+
+    // Lengths are log-normal around the median and clipped to min and max, max is about three sigma away
+    private Length nameLength = new Length(8, 24, 120);
+    private Length contentLength = new Length(20, 400, 20000);
+
+    // Also writes the Envers revisions that creating and moving the applications to their states would have left
+    private boolean history = false;
+
+    // Writer threads, each one inserting and committing whole batches; 0 for one per processor
+    private int threads = 0;
+
+    private int batchSize = 1000;
+
+    // The same seed, row count and distributions always generate the same applications
+    private long randomSeed = 42;
+
+    @Getter
+    @Setter
+    public static class Length {
+
+        private int min;
+        private int median;
+        private int max;
+
+        public Length() {
+        }
+
+        public Length(int min, int median, int max) {
+            this.min = min;
+            this.median = median;
+            this.max = max;
+        }
+    }
+}
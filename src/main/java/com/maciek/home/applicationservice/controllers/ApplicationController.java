@@ -1,70 +1,235 @@
 package com.maciek.home.applicationservice.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.maciek.home.applicationservice.config.ExportProperties;
+import com.maciek.home.applicationservice.events.ChangeFeed;
+import com.maciek.home.applicationservice.events.FeedEmitter;
 import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.ApplicationView;
+import com.maciek.home.applicationservice.model.BulkTransitionRequest;
+import com.maciek.home.applicationservice.model.ExportFormat;
+import com.maciek.home.applicationservice.model.ExportReport;
+import com.maciek.home.applicationservice.model.ImportReport;
+import com.maciek.home.applicationservice.model.RevisionPage;
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.SummaryPage;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import com.maciek.home.applicationservice.sevice.ApplicationExporter;
+import com.maciek.home.applicationservice.sevice.ApplicationImporter;
+import com.maciek.home.applicationservice.sevice.ApplicationJsonCache;
 import com.maciek.home.applicationservice.sevice.ApplicationService;
+import com.maciek.home.applicationservice.sevice.CollectionVersion;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.rmi.ServerException;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
 @RequestMapping(value = "/applications")
+// Replaced by AsyncApplicationController in the asynchronous mode
+@ConditionalOnProperty(prefix = "applications.async", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class ApplicationController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private final ApplicationService service;
+    private final ObjectMapper objectMapper;
+    private final CollectionVersion collectionVersion;
+    private final ApplicationImporter importer;
+    private final ApplicationExporter exporter;
+    private final ExportProperties exportProperties;
+    private final ChangeFeed changeFeed;
+    private final ApplicationJsonCache jsonCache;
 
     @Autowired
-    public ApplicationController(ApplicationService service) {
+    public ApplicationController(ApplicationService service, ObjectMapper objectMapper, CollectionVersion collectionVersion,
+                                 ApplicationImporter importer, ApplicationExporter exporter, ExportProperties exportProperties,
+                                 ChangeFeed changeFeed, ApplicationJsonCache jsonCache) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.collectionVersion = collectionVersion;
+        this.importer = importer;
+        this.exporter = exporter;
+        this.exportProperties = exportProperties;
+        this.changeFeed = changeFeed;
+        this.jsonCache = jsonCache;
     }
 
+    // view=summary lists only id, name and state, whole applications are written from their cached JSON
     @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Application>> getAll() {
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String view,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Getting all applications");
-        return new ResponseEntity<>(service.findAll(), HttpStatus.OK);
+        ApplicationView applicationView = ApplicationView.fromParam(view);
+        String etag = collectionVersion.etag(applicationView);
+        if (ETags.matchesWeak(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        Object applications = applicationView == ApplicationView.SUMMARY
+                ? service.findAllSummaries()
+                : jsonCache.jsonArray(service.findAll());
+        return ResponseEntity.ok().eTag(etag).body(applications);
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<State, Long>> stats() {
+        log.info("Getting number of applications per state");
+        return new ResponseEntity<>(service.countByState(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.info("Streaming all applications");
+        ObjectWriter writer = objectMapper.writerFor(Application.class);
+        StreamingResponseBody body = outputStream -> service.streamAll(application -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(application));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Committed changes as Server-Sent Events, instead of polling /all
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<FeedEmitter> events(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        log.info("Subscribing to changes after event: {}", lastEventId);
+        FeedEmitter emitter = changeFeed.subscribe(lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    // Best matches of all words in the name and content, served from the in-memory index
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<SearchHit>> search(@RequestParam String q, @RequestParam(required = false) String state,
+                                                  @RequestParam(required = false) Integer limit) {
+        log.info("Searching applications for: {}", q);
+        return ResponseEntity.ok(service.search(q, state, limit));
     }
 
     @GetMapping(value = {"/name/{sort}", "/name/{sort}/{page}"}, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Application>> allByName(@PathVariable String sort, @PathVariable(required = false) Integer page) {
+    public ResponseEntity<?> allByName(@PathVariable String sort, @PathVariable(required = false) Integer page,
+                                             @RequestParam(required = false) String after,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String view,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Trying to get applications sorted by Name");
-        page = page != null ? page : 0;
-        List<Application> allByOrderByName = service.findAllOrderByName(sort, page);
-        return new ResponseEntity<>(allByOrderByName, HttpStatus.OK);
+        ApplicationView applicationView = ApplicationView.fromParam(view);
+        String etag = collectionVersion.etag(applicationView);
+        if (ETags.matchesWeak(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        if (applicationView == ApplicationView.SUMMARY) {
+            SummaryPage summariesByName = after != null
+                    ? service.seekSummariesOrderByName(sort, after, limit)
+                    : service.findSummariesOrderByName(sort, page != null ? page : 0, limit);
+            return toResponse(summariesByName.getContent(), summariesByName.getNextCursor(), etag);
+        }
+        ApplicationPage allByOrderByName = after != null
+                ? service.seekAllOrderByName(sort, after, limit)
+                : service.findAllOrderByName(sort, page != null ? page : 0, limit);
+        return toResponse(jsonCache.jsonArray(allByOrderByName.getContent()), allByOrderByName.getNextCursor(), etag);
 
     }
 
     @GetMapping(value = {"state/{sort}", "/state/{sort}/{page}"}, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<Application>> allByState(@PathVariable String sort, @PathVariable(required = false) Integer page) {
+    public ResponseEntity<?> allByState(@PathVariable String sort, @PathVariable(required = false) Integer page,
+                                              @RequestParam(required = false) String after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String view,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Trying to get applications sorted by State");
-        page = page != null ? page : 0;
-        List<Application> allByOrderByName = service.findAllOrderByState(sort, page);
-        return new ResponseEntity<>(allByOrderByName, HttpStatus.OK);
+        ApplicationView applicationView = ApplicationView.fromParam(view);
+        String etag = collectionVersion.etag(applicationView);
+        if (ETags.matchesWeak(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        if (applicationView == ApplicationView.SUMMARY) {
+            SummaryPage summariesByState = after != null
+                    ? service.seekSummariesOrderByState(sort, after, limit)
+                    : service.findSummariesOrderByState(sort, page != null ? page : 0, limit);
+            return toResponse(summariesByState.getContent(), summariesByState.getNextCursor(), etag);
+        }
+        ApplicationPage allByOrderByState = after != null
+                ? service.seekAllOrderByState(sort, after, limit)
+                : service.findAllOrderByState(sort, page != null ? page : 0, limit);
+        return toResponse(jsonCache.jsonArray(allByOrderByState.getContent()), allByOrderByState.getNextCursor(), etag);
     }
 
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Application> getById(@PathVariable long id) {
+    public ResponseEntity<byte[]> getById(@PathVariable long id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Trying to get application with id: {}", id);
+        if (ifNoneMatch != null) {
+            // Only the version is read, the entity is loaded when the client copy is stale
+            String etag = ETags.strong(service.findVersionById(id));
+            if (ETags.matchesWeak(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+        }
         Application application = service.findById(id);
         if (application != null) {
-            return new ResponseEntity<>(application, HttpStatus.OK);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+            if (application.getVersion() != null) {
+                response.eTag(ETags.strong(application.getVersion()));
+            }
+            return response.body(jsonCache.json(application));
         }
         log.warn("Cannot find application with id: {}", id);
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping(value = "/{id}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ApplicationRevision>> history(@PathVariable long id,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(required = false) Integer limit) {
+        log.info("Getting history of application with id: {}", id);
+        RevisionPage page = service.findHistory(id, after, limit);
+        if (page.getContent().isEmpty() && after == null) {
+            log.warn("No history of application with id: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
+
     @PostMapping(value = "/create",
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
@@ -80,8 +245,14 @@ public class ApplicationController {
     }
 
     @PutMapping(value = "/update/{id}")
-    public ResponseEntity<Application> updateById(@PathVariable long id, @RequestBody Application application) {
+    public ResponseEntity<Application> updateById(@PathVariable long id, @RequestBody Application application,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Trying to update name and content of application with id: {}", id);
+        if (preconditionFailed(id, ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        // Checked against the row version inside the update transaction and by the versioned UPDATE
+        application.setVersion(ETags.ifMatchVersion(ifMatch));
 
         if (service.updateById(id, application)) {
             log.info("Updated application: {}", application);
@@ -91,10 +262,14 @@ public class ApplicationController {
     }
 
     @PutMapping(value = "/reject/{id}")
-    public ResponseEntity<Application> rejectById(@PathVariable long id, @RequestBody Application application) {
+    public ResponseEntity<Application> rejectById(@PathVariable long id, @RequestBody Application application,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Trying to reject name and content of application with id: {}", id);
+        if (preconditionFailed(id, ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
 
-        if (service.rejectById(id, application)) {
+        if (service.rejectById(id, application, ETags.ifMatchVersion(ifMatch))) {
             log.info("Application with id: {} is rejected", id);
             return new ResponseEntity<>(application, HttpStatus.OK);
         }
@@ -102,18 +277,26 @@ public class ApplicationController {
     }
 
     @PutMapping(value = "/verify/{id}")
-    public ResponseEntity<Application> verifyById(@PathVariable long id) {
+    public ResponseEntity<Application> verifyById(@PathVariable long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Verifying application with id: {}", id);
-        if (service.verifyById(id)) {
+        if (preconditionFailed(id, ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        if (service.verifyById(id, ETags.ifMatchVersion(ifMatch))) {
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.unprocessableEntity().build();
     }
 
     @DeleteMapping(value = "/remove/{id}")
-    public ResponseEntity<Long> deleteById(@PathVariable long id) {
+    public ResponseEntity<Long> deleteById(@PathVariable long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Trying to remove application with id: {}", id);
-        if (service.deleteById(id)) {
+        if (preconditionFailed(id, ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        if (service.deleteById(id, ETags.ifMatchVersion(ifMatch))) {
             return ResponseEntity.ok().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -121,21 +304,103 @@ public class ApplicationController {
     }
 
     @PutMapping(value = "/accept/{id}")
-    public ResponseEntity<Application> acceptById(@PathVariable long id) {
+    public ResponseEntity<Application> acceptById(@PathVariable long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Accepting application with id: {}", id);
-        if (service.acceptById(id)) {
+        if (preconditionFailed(id, ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        if (service.acceptById(id, ETags.ifMatchVersion(ifMatch))) {
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.unprocessableEntity().build();
     }
 
     @PutMapping(value = "/publish/{id}")
-    public ResponseEntity<Application> publishById(@PathVariable long id) {
+    public ResponseEntity<Application> publishById(@PathVariable long id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Publishing application with id: {}", id);
-        if (service.publishById(id)) {
+        if (preconditionFailed(id, ifMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        if (service.publishById(id, ETags.ifMatchVersion(ifMatch))) {
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.unprocessableEntity().build();
     }
 
+    @PutMapping(value = "/bulk/{transition}",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<Long, TransitionOutcome>> transitionAll(@PathVariable String transition,
+                                                                      @RequestBody BulkTransitionRequest request) {
+        log.info("Trying to {} {} applications", transition, request.getIds() != null ? request.getIds().size() : 0);
+        Map<Long, TransitionOutcome> outcomes = service.transitionAll(Transition.fromPath(transition),
+                request.getIds(), request.getRejectionReason());
+        return new ResponseEntity<>(outcomes, HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/import",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importNdjson(InputStream body) throws IOException {
+        log.info("Importing applications from NDJSON");
+        return new ResponseEntity<>(importer.importNdjson(body), HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/import",
+            consumes = "text/csv",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importCsv(InputStream body) throws IOException {
+        log.info("Importing applications from CSV");
+        return new ResponseEntity<>(importer.importCsv(body), HttpStatus.OK);
+    }
+
+    // Writes a dump to the export directory of the server, the body only reports where and how fast
+    @PostMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExportReport> export(@RequestParam(required = false) String format,
+                                               @RequestParam(required = false) Boolean gzip) throws IOException {
+        ExportFormat exportFormat = format != null ? ExportFormat.fromParam(format) : exportProperties.getFormat();
+        boolean compressed = gzip != null ? gzip : exportProperties.isGzip();
+        log.info("Exporting all applications as {}, gzip: {}", exportFormat, compressed);
+        return new ResponseEntity<>(exporter.export(exportFormat, compressed), HttpStatus.OK);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        log.warn("Rejected request: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Application> concurrentModification(OptimisticLockingFailureException e) {
+        log.warn("Rejected concurrent modification: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    // If-Match: * only asks for an existing application. Versions are compared by the write statements themselves,
+    // a version they do not find ends in OptimisticLockingFailureException.
+    private boolean preconditionFailed(long id, String ifMatch) {
+        if (ifMatch == null || !ifMatch.trim().equals("*")) {
+            return false;
+        }
+        boolean failed = service.findVersionById(id) == null;
+        if (failed) {
+            log.warn("Precondition {} failed for application with id: {}", ifMatch, id);
+        }
+        return failed;
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    private ResponseEntity<?> toResponse(Object content, String nextCursor, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+
 }
\ No newline at end of file
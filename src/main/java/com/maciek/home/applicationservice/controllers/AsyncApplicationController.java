@@ -0,0 +1,284 @@
+package com.maciek.home.applicationservice.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciek.home.applicationservice.config.AsyncConfig;
+import com.maciek.home.applicationservice.config.AsyncProperties;
+import com.maciek.home.applicationservice.config.ExportProperties;
+import com.maciek.home.applicationservice.events.ChangeFeed;
+import com.maciek.home.applicationservice.events.FeedEmitter;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.BulkTransitionRequest;
+import com.maciek.home.applicationservice.model.ExportReport;
+import com.maciek.home.applicationservice.model.ImportReport;
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import com.maciek.home.applicationservice.sevice.ApplicationExporter;
+import com.maciek.home.applicationservice.sevice.ApplicationImporter;
+import com.maciek.home.applicationservice.sevice.ApplicationJsonCache;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import com.maciek.home.applicationservice.sevice.CollectionVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The applications API with asynchronous handlers, registered instead of {@link ApplicationController} when
+ * applications.async.enabled is set. Each request runs the blocking handler on the read or write executor and the
+ * servlet thread is released until the future completes. Full executors and read timeouts answer 503 with Retry-After.
+ * A write that times out may still commit, so its timeout answers 202 without a retry hint.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/applications")
+@ConditionalOnProperty(prefix = "applications.async", name = "enabled", havingValue = "true")
+public class AsyncApplicationController {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // Not a bean in async mode, only the request handling logic is reused
+    private final ApplicationController blocking;
+    private final Executor readExecutor;
+    private final Executor writeExecutor;
+    private final long timeoutMillis;
+
+    public AsyncApplicationController(ApplicationService service, ObjectMapper objectMapper, CollectionVersion collectionVersion,
+                                      ApplicationImporter importer, ApplicationExporter exporter, ExportProperties exportProperties,
+                                      ChangeFeed changeFeed, ApplicationJsonCache jsonCache,
+                                      @Qualifier(AsyncConfig.READ_EXECUTOR) Executor readExecutor,
+                                      @Qualifier(AsyncConfig.WRITE_EXECUTOR) Executor writeExecutor,
+                                      AsyncProperties asyncProperties) {
+        this.blocking = new ApplicationController(service, objectMapper, collectionVersion, importer, exporter, exportProperties,
+                changeFeed, jsonCache);
+        this.readExecutor = readExecutor;
+        this.writeExecutor = writeExecutor;
+        this.timeoutMillis = asyncProperties.getTimeout().toMillis();
+    }
+
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<?>> getAll(@RequestParam(required = false) String view,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return read(() -> blocking.getAll(view, ifNoneMatch));
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<Map<State, Long>>> stats() {
+        return read(blocking::stats);
+    }
+
+    // Already asynchronous, the body is written by the MVC task executor
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return blocking.streamAll();
+    }
+
+    // Already asynchronous, subscribing only registers the stream
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<FeedEmitter> events(@RequestHeader(value = ApplicationController.LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return blocking.events(lastEventId);
+    }
+
+    // Answered from memory, not worth a hop to the read executor
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<SearchHit>> search(@RequestParam String q, @RequestParam(required = false) String state,
+                                                  @RequestParam(required = false) Integer limit) {
+        return blocking.search(q, state, limit);
+    }
+
+    @GetMapping(value = {"/name/{sort}", "/name/{sort}/{page}"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<?>> allByName(@PathVariable String sort, @PathVariable(required = false) Integer page,
+                                                                @RequestParam(required = false) String after,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                @RequestParam(required = false) String view,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return read(() -> blocking.allByName(sort, page, after, limit, view, ifNoneMatch));
+    }
+
+    @GetMapping(value = {"state/{sort}", "/state/{sort}/{page}"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<?>> allByState(@PathVariable String sort, @PathVariable(required = false) Integer page,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) String view,
+                                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return read(() -> blocking.allByState(sort, page, after, limit, view, ifNoneMatch));
+    }
+
+    @GetMapping(value = "/{id}")
+    public CompletableFuture<ResponseEntity<byte[]>> getById(@PathVariable long id,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return read(() -> blocking.getById(id, ifNoneMatch));
+    }
+
+    @GetMapping(value = "/{id}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<List<ApplicationRevision>>> history(@PathVariable long id,
+                                                                                @RequestParam(required = false) String after,
+                                                                                @RequestParam(required = false) Integer limit) {
+        return read(() -> blocking.history(id, after, limit));
+    }
+
+    @PostMapping(value = "/create",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<Application>> create(@RequestBody Application newApplication) {
+        return write(() -> blocking.create(newApplication));
+    }
+
+    @PutMapping(value = "/update/{id}")
+    public CompletableFuture<ResponseEntity<Application>> updateById(@PathVariable long id, @RequestBody Application application,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return write(() -> blocking.updateById(id, application, ifMatch));
+    }
+
+    @PutMapping(value = "/reject/{id}")
+    public CompletableFuture<ResponseEntity<Application>> rejectById(@PathVariable long id, @RequestBody Application application,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return write(() -> blocking.rejectById(id, application, ifMatch));
+    }
+
+    @PutMapping(value = "/verify/{id}")
+    public CompletableFuture<ResponseEntity<Application>> verifyById(@PathVariable long id,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return write(() -> blocking.verifyById(id, ifMatch));
+    }
+
+    @DeleteMapping(value = "/remove/{id}")
+    public CompletableFuture<ResponseEntity<Long>> deleteById(@PathVariable long id,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return write(() -> blocking.deleteById(id, ifMatch));
+    }
+
+    @PutMapping(value = "/accept/{id}")
+    public CompletableFuture<ResponseEntity<Application>> acceptById(@PathVariable long id,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return write(() -> blocking.acceptById(id, ifMatch));
+    }
+
+    @PutMapping(value = "/publish/{id}")
+    public CompletableFuture<ResponseEntity<Application>> publishById(@PathVariable long id,
+                                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return write(() -> blocking.publishById(id, ifMatch));
+    }
+
+    @PutMapping(value = "/bulk/{transition}",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<Map<Long, TransitionOutcome>>> transitionAll(@PathVariable String transition,
+                                                                                         @RequestBody BulkTransitionRequest request) {
+        return write(() -> blocking.transitionAll(transition, request));
+    }
+
+    @PostMapping(value = "/import",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<ImportReport>> importNdjson(InputStream body) {
+        return write(() -> blocking.importNdjson(body));
+    }
+
+    @PostMapping(value = "/import",
+            consumes = "text/csv",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<ImportReport>> importCsv(InputStream body) {
+        return write(() -> blocking.importCsv(body));
+    }
+
+    @PostMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<ExportReport>> export(@RequestParam(required = false) String format,
+                                                                  @RequestParam(required = false) Boolean gzip) {
+        return write(() -> blocking.export(format, gzip));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return blocking.badRequest(e);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Application> concurrentModification(OptimisticLockingFailureException e) {
+        return blocking.concurrentModification(e);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> overloaded(RejectedExecutionException e) {
+        log.warn("Rejected request, executor is full: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Void> timedOut(TimeoutException e) {
+        log.warn("Request did not finish within {} ms", timeoutMillis);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+    }
+
+    // The handler keeps running and may still commit, retrying would create or transition a second time
+    @ExceptionHandler(WriteTimeoutException.class)
+    public ResponseEntity<Void> writeTimedOut(WriteTimeoutException e) {
+        log.warn("Write did not finish within {} ms, left running", timeoutMillis);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    private <T> CompletableFuture<T> read(Callable<T> handler) {
+        return submit(handler, readExecutor);
+    }
+
+    private <T> CompletableFuture<T> write(Callable<T> handler) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(handler, writeExecutor).whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(e instanceof TimeoutException ? new WriteTimeoutException(e) : e);
+            }
+        });
+        return result;
+    }
+
+    // The timeout only answers the client, a handler that already started still runs to its end
+    private <T> CompletableFuture<T> submit(Callable<T> handler, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return handler.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Told apart from a read timeout, which is safe to retry
+    static class WriteTimeoutException extends RuntimeException {
+
+        WriteTimeoutException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
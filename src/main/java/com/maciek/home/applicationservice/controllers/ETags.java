@@ -0,0 +1,60 @@
+package com.maciek.home.applicationservice.controllers;
+
+/**
+ * Entity tags of single applications (strong, built from the optimistic lock version) and helpers to compare
+ * them with If-None-Match and to read the version an If-Match header expects.
+ */
+public final class ETags {
+
+    // Optimistic lock versions start at 0
+    public static final long NO_VERSION = -1;
+
+    private ETags() {
+    }
+
+    public static String strong(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * Version an If-Match header makes a write conditional on, null without a header or for "*". Weak and malformed
+     * tags never match in the strong comparison, so they expect {@link #NO_VERSION}, which no row has. Lists cannot be
+     * expressed as one expected version and are rejected.
+     */
+    public static Long ifMatchVersion(String header) {
+        if (header == null || header.trim().equals("*")) {
+            return null;
+        }
+        String tag = header.trim();
+        if (tag.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("If-Match has to name a single entity tag: " + tag);
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return NO_VERSION;
+        }
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    // If-None-Match uses the weak comparison, W/"1" matches "1"
+    public static boolean matchesWeak(String header, String etag) {
+        if (header == null || etag == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,23 @@
+package com.maciek.home.applicationservice.events;
+
+import com.maciek.home.applicationservice.model.State;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by the service for every successful write. Listeners should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)}, so they only see committed changes.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ApplicationChangedEvent {
+
+    private final long id;
+    private final ChangeType type;
+    // State before the change, null for CREATED
+    private final State previousState;
+    // State after the change, null for DELETED
+    private final State state;
+}
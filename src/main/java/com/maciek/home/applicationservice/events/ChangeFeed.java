@@ -0,0 +1,232 @@
+package com.maciek.home.applicationservice.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciek.home.applicationservice.config.EventsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Server-Sent Events feed of committed changes. Every change is numbered and formatted once, kept in a history ring
+ * for resuming with Last-Event-ID and offered to the bounded buffer of each subscriber. A few delivery threads write
+ * the buffers out, so open streams cost no thread and no work while nothing changes. Streams use non-blocking output,
+ * a delivery thread never waits for a client: it stops at a stream that is not ready and the container schedules the
+ * stream again once it is. A client that stops reading fills its own buffer and meets the slow consumer policy.
+ */
+@Slf4j
+@Component
+public class ChangeFeed {
+
+    // Distinguishes event ids of different service runs, an id of another run cannot be resumed
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ObjectMapper objectMapper;
+    private final EventsProperties properties;
+    private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final FeedEvent[] history;
+    private final ExecutorService delivery;
+    private final Counter droppedCounter;
+    private final Counter disconnectedCounter;
+    // Guarded by history
+    private long lastSequence;
+
+    public ChangeFeed(ObjectMapper objectMapper, EventsProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.history = new FeedEvent[properties.getHistorySize()];
+        this.delivery = Executors.newFixedThreadPool(properties.getDeliveryThreads(), new CustomizableThreadFactory("change-feed-"));
+        Gauge.builder("applications.events.subscribers", subscribers, Set::size)
+                .description("Open change feed streams")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("applications.events.dropped")
+                .description("Events dropped for subscribers that did not keep up")
+                .register(meterRegistry);
+        this.disconnectedCounter = Counter.builder("applications.events.disconnected")
+                .description("Subscribers disconnected because they did not keep up")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ApplicationChangedEvent change) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize {}, not sent to the change feed", change, e);
+            return;
+        }
+        // Numbered and offered under one lock, so every subscriber gets the events in order and without gaps
+        synchronized (history) {
+            long sequence = ++lastSequence;
+            FeedEvent event = FeedEvent.of(sequence, id(sequence), change.getType().name(), json);
+            history[(int) (sequence % history.length)] = event;
+            for (FeedSubscriber subscriber : subscribers) {
+                offer(subscriber, event);
+            }
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    // Null when the subscriber limit is reached
+    public FeedEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= properties.getMaxSubscribers()) {
+            log.warn("Refused change feed subscriber, {} streams are open", subscribers.size());
+            return null;
+        }
+        FeedEmitter emitter = new FeedEmitter(properties.getTimeout().toMillis());
+        FeedSubscriber subscriber = new FeedSubscriber(emitter, properties.getBufferSize());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        synchronized (history) {
+            if (lastEventId != null) {
+                replayAfter(subscriber, lastEventId.trim());
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+
+    // Only streams that stayed quiet need it, it also finds clients that went away without closing
+    @Scheduled(initialDelayString = "${applications.events.heartbeat:PT15S}",
+            fixedDelayString = "${applications.events.heartbeat:PT15S}")
+    public void heartbeat() {
+        for (FeedSubscriber subscriber : subscribers) {
+            subscriber.markHeartbeatDue();
+            schedule(subscriber);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        delivery.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+        subscribers.clear();
+    }
+
+    private void replayAfter(FeedSubscriber subscriber, String lastEventId) {
+        long last = sequenceOf(lastEventId);
+        long oldest = Math.max(1, lastSequence - history.length + 1);
+        if (last < 0 || last > lastSequence || last + 1 < oldest) {
+            log.info("Last-Event-ID {} is not in the change feed history, sending a reset", lastEventId);
+            subscriber.replay(FeedEvent.reset(id(lastSequence)));
+            return;
+        }
+        for (long sequence = last + 1; sequence <= lastSequence; sequence++) {
+            subscriber.replay(history[(int) (sequence % history.length)]);
+        }
+    }
+
+    private void offer(FeedSubscriber subscriber, FeedEvent event) {
+        if (subscriber.isOverflowed()) {
+            return;
+        }
+        if (properties.getSlowConsumer() == EventsProperties.SlowConsumer.DROP_OLDEST) {
+            if (subscriber.offerDroppingOldest(event)) {
+                droppedCounter.increment();
+            }
+        } else if (!subscriber.offer(event)) {
+            subscriber.markOverflowed();
+        }
+    }
+
+    private void schedule(FeedSubscriber subscriber) {
+        if (subscriber.hasPending() && subscriber.markScheduled()) {
+            try {
+                delivery.execute(() -> deliver(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.clearScheduled();
+            }
+        }
+    }
+
+    // Runs on one delivery thread at a time per subscriber and only writes while the stream is ready, so a client that
+    // does not read holds up no thread. Where the container has no non-blocking output the sends block instead.
+    private void deliver(FeedSubscriber subscriber) {
+        FeedEmitter emitter = subscriber.getEmitter();
+        try {
+            settleOutput(subscriber);
+            FeedEvent event;
+            while (emitter.isReady() && (event = subscriber.poll()) != null) {
+                emitter.send(event);
+                settleOutput(subscriber);
+            }
+            if (subscriber.isOverflowed()) {
+                log.debug("Disconnecting a change feed subscriber that did not keep up");
+                disconnectedCounter.increment();
+                subscribers.remove(subscriber);
+                emitter.complete();
+                return;
+            }
+            if (emitter.isReady() && subscriber.takeHeartbeat()) {
+                emitter.send(FeedEvent.heartbeat());
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the stream completed meanwhile
+            subscribers.remove(subscriber);
+            emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.clearScheduled();
+        }
+        // Not ready, the write listener schedules the stream again. Asked after clearing the flag, so a callback that
+        // came in meanwhile is not lost.
+        if (emitter.isReady()) {
+            schedule(subscriber);
+        }
+    }
+
+    // Tried again before every send until it worked, a stream may be delivered to before async processing started,
+    // e.g. the replay of a resuming client. Sends before that are buffered by the emitter.
+    private void settleOutput(FeedSubscriber subscriber) {
+        if (!subscriber.isOutputSettled()) {
+            FeedEmitter emitter = subscriber.getEmitter();
+            boolean settled = emitter.writeNonBlocking(() -> schedule(subscriber), e -> {
+                subscribers.remove(subscriber);
+                emitter.completeWithError(e);
+            });
+            if (settled) {
+                subscriber.markOutputSettled();
+            }
+        }
+    }
+
+    // Open streams on non-blocking output
+    int getNonBlockingSubscriberCount() {
+        return (int) subscribers.stream().filter(subscriber -> subscriber.getEmitter().isNonBlocking()).count();
+    }
+
+    private String id(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.maciek.home.applicationservice.events;
+
+public enum ChangeType {
+    CREATED, UPDATED, TRANSITIONED, DELETED
+}
@@ -0,0 +1,96 @@
+package com.maciek.home.applicationservice.events;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Server-Sent Events stream of the change feed. Unlike SseEmitter it writes the frames as they are, every event is
+ * formatted once by the feed and sent to all subscribers as the same string. Once switched to non-blocking output a
+ * send never waits for the client, the feed only sends while the stream is ready.
+ */
+public class FeedEmitter extends ResponseBodyEmitter {
+
+    private static final MediaType TEXT_EVENT_STREAM = new MediaType(MediaType.TEXT_EVENT_STREAM, StandardCharsets.UTF_8);
+    private static final MediaType TEXT_PLAIN = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private volatile HttpServletResponse servletResponse;
+    // Set once the container accepted the write listener, null while sends block
+    private volatile ServletOutputStream nonBlockingOutput;
+
+    public FeedEmitter() {
+    }
+
+    public FeedEmitter(Long timeout) {
+        super(timeout);
+    }
+
+    void send(FeedEvent event) throws IOException {
+        send(event.getFrame(), TEXT_PLAIN);
+    }
+
+    // Switches the stream to non-blocking output, onWritable runs when a stream that was not ready can take more frames.
+    // False while that is not possible yet: before Spring MVC handed over the response and started async processing,
+    // sends are buffered by the emitter and do not block either. True once switched, or when the container has no
+    // non-blocking output (MockMvc), which keeps blocking sends.
+    boolean writeNonBlocking(Runnable onWritable, Consumer<Throwable> onError) {
+        HttpServletResponse response = servletResponse;
+        if (response == null) {
+            return false;
+        }
+        if (nonBlockingOutput != null) {
+            return true;
+        }
+        try {
+            ServletOutputStream output = response.getOutputStream();
+            output.setWriteListener(new WriteListener() {
+                @Override
+                public void onWritePossible() {
+                    onWritable.run();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    onError.accept(t);
+                }
+            });
+            nonBlockingOutput = output;
+            return true;
+        } catch (IllegalStateException e) {
+            // Not asynchronous yet
+            return false;
+        } catch (IOException | UnsupportedOperationException e) {
+            return true;
+        }
+    }
+
+    boolean isNonBlocking() {
+        return nonBlockingOutput != null;
+    }
+
+    // False while the client has not taken the frames already sent, the write listener is called once it has
+    boolean isReady() {
+        ServletOutputStream output = nonBlockingOutput;
+        return output == null || output.isReady();
+    }
+
+    // Set before the first frame, the frames themselves are plain text and must not change the content type
+    @Override
+    protected void extendResponse(ServerHttpResponse outputMessage) {
+        super.extendResponse(outputMessage);
+        if (outputMessage.getHeaders().getContentType() == null) {
+            outputMessage.getHeaders().setContentType(TEXT_EVENT_STREAM);
+        }
+        if (outputMessage instanceof ServletServerHttpResponse) {
+            servletResponse = ((ServletServerHttpResponse) outputMessage).getServletResponse();
+        }
+    }
+}
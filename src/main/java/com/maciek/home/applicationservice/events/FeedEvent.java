@@ -0,0 +1,42 @@
+package com.maciek.home.applicationservice.events;
+
+/**
+ * One change feed event, formatted as a complete SSE frame when it is published, so sending it to any number of
+ * subscribers writes the same string instead of building it per subscriber.
+ */
+final class FeedEvent {
+
+    static final String RESET = "RESET";
+
+    // An SSE comment line, ignored by clients
+    private static final FeedEvent HEARTBEAT = new FeedEvent(0, ":\n\n");
+
+    private final long sequence;
+    private final String frame;
+
+    private FeedEvent(long sequence, String frame) {
+        this.sequence = sequence;
+        this.frame = frame;
+    }
+
+    static FeedEvent of(long sequence, String id, String name, String json) {
+        return new FeedEvent(sequence, "id:" + id + "\nevent:" + name + "\ndata:" + json + "\n\n");
+    }
+
+    // Tells the client its Last-Event-ID is no longer in the history, it has to reload the list
+    static FeedEvent reset(String id) {
+        return new FeedEvent(0, "id:" + id + "\nevent:" + RESET + "\ndata:{}\n\n");
+    }
+
+    static FeedEvent heartbeat() {
+        return HEARTBEAT;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    String getFrame() {
+        return frame;
+    }
+}
@@ -0,0 +1,97 @@
+package com.maciek.home.applicationservice.events;
+
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open stream: the events missed before it connected, a bounded ring of live events and a flag making sure only
+ * one delivery thread writes to it at a time. Events wait in the ring while the client is not reading, the slow
+ * consumer policy applies once it is full.
+ */
+class FeedSubscriber {
+
+    private final FeedEmitter emitter;
+    private final BlockingQueue<FeedEvent> buffer;
+    private final Deque<FeedEvent> replay = new ArrayDeque<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean overflowed;
+    private volatile boolean heartbeatDue;
+    private volatile boolean outputSettled;
+
+    FeedSubscriber(FeedEmitter emitter, int bufferSize) {
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    FeedEmitter getEmitter() {
+        return emitter;
+    }
+
+    // Only called before the subscriber is registered for live events
+    void replay(FeedEvent event) {
+        replay.add(event);
+    }
+
+    // False when the buffer is full, the caller applies the slow consumer policy
+    boolean offer(FeedEvent event) {
+        return buffer.offer(event);
+    }
+
+    // Makes room for the newest event by dropping the oldest one, true if one was dropped
+    boolean offerDroppingOldest(FeedEvent event) {
+        boolean dropped = false;
+        while (!buffer.offer(event)) {
+            dropped |= buffer.poll() != null;
+        }
+        return dropped;
+    }
+
+    // Replayed events come first, the replay is only filled before the first delivery is scheduled
+    FeedEvent poll() {
+        FeedEvent replayed = replay.poll();
+        return replayed != null ? replayed : buffer.poll();
+    }
+
+    boolean hasPending() {
+        return !replay.isEmpty() || !buffer.isEmpty() || heartbeatDue || overflowed;
+    }
+
+    boolean markScheduled() {
+        return scheduled.compareAndSet(false, true);
+    }
+
+    void clearScheduled() {
+        scheduled.set(false);
+    }
+
+    // Set once the stream switched to non-blocking output, or turned out not to have it
+    boolean isOutputSettled() {
+        return outputSettled;
+    }
+
+    void markOutputSettled() {
+        outputSettled = true;
+    }
+
+    void markOverflowed() {
+        overflowed = true;
+    }
+
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    void markHeartbeatDue() {
+        heartbeatDue = true;
+    }
+
+    boolean takeHeartbeat() {
+        boolean due = heartbeatDue;
+        heartbeatDue = false;
+        return due;
+    }
+}
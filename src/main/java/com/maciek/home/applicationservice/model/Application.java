@@ -1,19 +1,30 @@
 package com.maciek.home.applicationservice.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.envers.Audited;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Basic;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import java.util.Objects;
 
 @Builder
@@ -24,19 +35,40 @@ import java.util.Objects;
 @NoArgsConstructor
 @AllArgsConstructor
 @Audited
+// Composite indexes matching the listing and seek queries, descending ones because H2 cannot scan an index backwards
+@Table(indexes = {
+        @Index(name = "idx_application_name_id", columnList = "name, id"),
+        @Index(name = "idx_application_name_id_desc", columnList = "name desc, id desc"),
+        @Index(name = "idx_application_state_id", columnList = "state, id"),
+        @Index(name = "idx_application_state_id_desc", columnList = "state desc, id desc")
+})
 public class Application {
 
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "application_id")
+    @GenericGenerator(name = "application_id", strategy = "com.maciek.home.applicationservice.model.ApplicationIdGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "application_seq"))
     private Long id;
     private String name;
+    // Loaded on first access, so state changes and listings do not drag it along. Needs the build time enhancement,
+    // queries that return whole applications load it with "fetch all properties".
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Convert(converter = CompressedContentConverter.class)
     private String content;
     @Enumerated
     @Column(nullable = false)
     @Builder.Default
     private State state = State.CREATED;
     private String rejectionReason;
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    public Application(Long id, String name, String content, State state, String rejectionReason) {
+        this(id, name, content, state, rejectionReason, null);
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,55 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.envers.RevisionType;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One audited change of an application. Content is only filled in when the revision changed it.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ApplicationRevision {
+
+    private final int revision;
+    private final RevisionType type;
+    private final Instant timestamp;
+    private final String name;
+    private final State state;
+    private final String rejectionReason;
+    private final String content;
+    // Fields that differ from the previous revision, every field for the first one
+    private final List<String> changes;
+
+    public ApplicationRevision(int revision, RevisionType type, Instant timestamp, String name, State state,
+                               String rejectionReason, String content) {
+        this(revision, type, timestamp, name, state, rejectionReason, content, null);
+    }
+
+    public ApplicationRevision comparedTo(ApplicationRevision previous) {
+        List<String> changed = new ArrayList<>();
+        if (type != RevisionType.DEL) {
+            if (previous == null || !Objects.equals(name, previous.name)) {
+                changed.add("name");
+            }
+            if (previous == null || !Objects.equals(content, previous.content)) {
+                changed.add("content");
+            }
+            if (previous == null || state != previous.state) {
+                changed.add("state");
+            }
+            if (previous == null || !Objects.equals(rejectionReason, previous.rejectionReason)) {
+                changed.add("rejectionReason");
+            }
+        }
+        return new ApplicationRevision(revision, type, timestamp, name, state, rejectionReason,
+                changed.contains("content") ? content : null, changed);
+    }
+}
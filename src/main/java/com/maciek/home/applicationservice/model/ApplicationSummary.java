@@ -0,0 +1,18 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Application without its text columns, built by constructor expressions in the repository queries.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ApplicationSummary {
+
+    private final Long id;
+    private final String name;
+    private final State state;
+}
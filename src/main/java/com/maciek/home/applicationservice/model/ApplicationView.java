@@ -0,0 +1,24 @@
+package com.maciek.home.applicationservice.model;
+
+import java.util.Locale;
+
+/**
+ * Representation of applications in list responses, picked with the view request parameter.
+ */
+public enum ApplicationView {
+    // Whole applications, including content and rejection reason
+    FULL,
+    // Only id, name and state, read without loading entities
+    SUMMARY;
+
+    public static ApplicationView fromParam(String view) {
+        if (view == null) {
+            return FULL;
+        }
+        try {
+            return valueOf(view.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown view: " + view, e);
+        }
+    }
+}
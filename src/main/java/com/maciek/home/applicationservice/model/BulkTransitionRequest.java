@@ -0,0 +1,21 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransitionRequest {
+
+    private List<Long> ids;
+    // Only used by the reject transition
+    private String rejectionReason;
+}
@@ -0,0 +1,29 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Number of committed writes to a table, shared by every instance of the service through the database. Read and
+ * moved with plain SQL by {@code CollectionVersion}, the epoch (millis) tells apart counters of recreated databases.
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@NoArgsConstructor
+public class ChangeCounter {
+
+    @Id
+    private String name;
+    @Column(nullable = false)
+    private long epoch;
+    @Column(nullable = false)
+    private long changes;
+}
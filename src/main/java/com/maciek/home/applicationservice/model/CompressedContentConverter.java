@@ -0,0 +1,115 @@
+package com.maciek.home.applicationservice.model;
+
+import com.maciek.home.applicationservice.config.ContentProperties;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores application content as UTF-8, deflated once it is longer than the configured threshold. The first byte
+ * tells the two apart, deflated content continues with its UTF-8 length and the raw deflate stream. Also used by
+ * the JDBC code reading and writing the column around Hibernate.
+ */
+@Component
+@Converter
+public class CompressedContentConverter implements AttributeConverter<String, byte[]> {
+
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATED = 1;
+    private static final int HEADER_LENGTH = 1 + Integer.BYTES;
+
+    private final int threshold;
+    private final int level;
+
+    public CompressedContentConverter(ContentProperties properties) {
+        this.threshold = (int) properties.getCompressionThreshold().toBytes();
+        this.level = properties.getCompressionLevel();
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= threshold) {
+            byte[] deflated = deflate(utf8);
+            // Incompressible content is kept plain rather than stored bigger
+            if (deflated != null) {
+                return deflated;
+            }
+        }
+        byte[] plain = new byte[utf8.length + 1];
+        plain[0] = PLAIN;
+        System.arraycopy(utf8, 0, plain, 1, utf8.length);
+        return plain;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] column) {
+        if (column == null) {
+            return null;
+        }
+        if (column.length == 0) {
+            return "";
+        }
+        switch (column[0]) {
+            case PLAIN:
+                return new String(column, 1, column.length - 1, StandardCharsets.UTF_8);
+            case DEFLATED:
+                return new String(inflate(column), StandardCharsets.UTF_8);
+            default:
+                throw new IllegalStateException("Unknown content encoding: " + column[0]);
+        }
+    }
+
+    private byte[] deflate(byte[] utf8) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 2 + HEADER_LENGTH);
+            out.write(DEFLATED);
+            out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(utf8.length).array());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() > utf8.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] column) {
+        int length = ByteBuffer.wrap(column, 1, Integer.BYTES).getInt();
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(column, HEADER_LENGTH, column.length - HEADER_LENGTH);
+            byte[] utf8 = new byte[length];
+            int inflated = 0;
+            while (inflated < length) {
+                int count = inflater.inflate(utf8, inflated, length - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Deflated content is truncated");
+                }
+                inflated += count;
+            }
+            return utf8;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Deflated content is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
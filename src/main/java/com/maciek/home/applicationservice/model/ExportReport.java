@@ -0,0 +1,29 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class ExportReport {
+
+    private final String file;
+    private final ExportFormat format;
+    private final boolean gzip;
+    private final long rows;
+    // Bytes written to the file, after compression
+    private final long bytes;
+    private final long durationMillis;
+    private final long rowsPerSecond;
+    private final long bytesPerSecond;
+
+    public static ExportReport of(String file, ExportFormat format, boolean gzip, long rows, long bytes, Duration duration) {
+        // At least a millisecond, so tiny exports do not divide by zero
+        long millis = Math.max(duration.toMillis(), 1);
+        return new ExportReport(file, format, gzip, rows, bytes, millis, rows * 1000 / millis, bytes * 1000 / millis);
+    }
+}
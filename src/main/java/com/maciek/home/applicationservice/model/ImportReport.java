@@ -0,0 +1,46 @@
+package com.maciek.home.applicationservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@ToString
+public class ImportReport {
+
+    private long accepted;
+    private long rejected;
+    private final List<ImportError> errors = new ArrayList<>();
+    // True when more lines were rejected than the report lists
+    private boolean errorsTruncated;
+    // True when the upload could not be read to its end, the lines after the last error were not imported
+    private boolean stopped;
+
+    @JsonIgnore
+    private final int maxErrors;
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void accept(long count) {
+        accepted += count;
+    }
+
+    public void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(new ImportError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void stop(long line, String message) {
+        reject(line, message);
+        stopped = true;
+    }
+}
@@ -0,0 +1,52 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Publication of an application waiting to be delivered downstream. Rows are inserted in the transaction that
+ * publishes the application and read and updated with plain SQL by the outbox dispatcher, times are epoch millis.
+ */
+@Getter
+@Setter
+@ToString
+@Entity
+@NoArgsConstructor
+// Matches the claim query, pending rows due for delivery in id order
+@Table(indexes = @Index(name = "idx_outbox_message_status_next_attempt", columnList = "status, nextAttemptAt, id"))
+public class OutboxMessage {
+
+    public enum Status {
+        PENDING, DONE, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Long applicationId;
+    @Column(nullable = false)
+    private long createdAt;
+    @Enumerated
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(nullable = false)
+    private long nextAttemptAt;
+    private String claimedBy;
+    private Long claimedUntil;
+    private Long processedAt;
+    private String lastError;
+}
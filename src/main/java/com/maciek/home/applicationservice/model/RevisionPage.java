@@ -0,0 +1,18 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class RevisionPage {
+
+    // Newest revision first
+    private final List<ApplicationRevision> content;
+    // Opaque cursor of the last revision, null when there is no older one
+    private final String nextCursor;
+}
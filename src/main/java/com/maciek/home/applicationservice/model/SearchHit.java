@@ -0,0 +1,19 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Application matching a search, answered from the index alone. The full application is at /applications/{id}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SearchHit {
+
+    private final long id;
+    private final String name;
+    private final State state;
+    private final double score;
+}
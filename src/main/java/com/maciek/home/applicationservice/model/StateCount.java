@@ -0,0 +1,8 @@
+package com.maciek.home.applicationservice.model;
+
+public interface StateCount {
+
+    State getState();
+
+    long getTotal();
+}
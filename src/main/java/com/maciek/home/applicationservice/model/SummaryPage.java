@@ -0,0 +1,17 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class SummaryPage {
+
+    private final List<ApplicationSummary> content;
+    // Opaque cursor of the last row, null when there is no next page
+    private final String nextCursor;
+}
@@ -0,0 +1,44 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.Getter;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static com.maciek.home.applicationservice.model.State.ACCEPTED;
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.PUBLISHED;
+import static com.maciek.home.applicationservice.model.State.REJECTED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+
+/**
+ * Lifecycle moves of an application together with the states each of them may start from.
+ */
+@Getter
+public enum Transition {
+    VERIFY(VERIFIED, EnumSet.of(CREATED)),
+    ACCEPT(ACCEPTED, EnumSet.of(VERIFIED)),
+    PUBLISH(PUBLISHED, EnumSet.of(ACCEPTED)),
+    REJECT(REJECTED, EnumSet.of(VERIFIED, ACCEPTED));
+
+    private final State target;
+    private final Set<State> allowedFrom;
+
+    Transition(State target, Set<State> allowedFrom) {
+        this.target = target;
+        this.allowedFrom = allowedFrom;
+    }
+
+    public boolean isAllowedFrom(State state) {
+        return allowedFrom.contains(state);
+    }
+
+    public static Transition fromPath(String transition) {
+        try {
+            return valueOf(transition.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown transition: " + transition, e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.maciek.home.applicationservice.model;
+
+public enum TransitionOutcome {
+    APPLIED, WRONG_STATE, NOT_FOUND
+}
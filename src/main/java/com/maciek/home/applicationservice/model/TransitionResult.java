@@ -0,0 +1,28 @@
+package com.maciek.home.applicationservice.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransitionResult {
+
+    private final TransitionOutcome outcome;
+    // State the row has been moved from when applied, the state it stays in otherwise, null when it does not exist
+    private final State state;
+
+    public static TransitionResult applied(State from) {
+        return new TransitionResult(TransitionOutcome.APPLIED, from);
+    }
+
+    public static TransitionResult wrongState(State state) {
+        return new TransitionResult(TransitionOutcome.WRONG_STATE, state);
+    }
+
+    public static TransitionResult notFound() {
+        return new TransitionResult(TransitionOutcome.NOT_FOUND, null);
+    }
+}
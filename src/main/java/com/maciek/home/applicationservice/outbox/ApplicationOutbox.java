@@ -0,0 +1,39 @@
+package com.maciek.home.applicationservice.outbox;
+
+import com.maciek.home.applicationservice.model.OutboxMessage;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * Writes outbox rows for published applications. It only joins the publishing transaction, so a row exists
+ * exactly when the state change committed, and the request never waits for the downstream system.
+ */
+@Component
+public class ApplicationOutbox {
+
+    private static final String INSERT_PUBLISHED = "insert into outbox_message (application_id, created_at, status, attempts, next_attempt_at) "
+            + "select id, :now, :status, 0, :now from application where id in (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ApplicationOutbox(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int published(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.update(INSERT_PUBLISHED, new MapSqlParameterSource()
+                .addValue("now", now)
+                .addValue("status", OutboxMessage.Status.PENDING.ordinal())
+                .addValue("ids", ids));
+    }
+}
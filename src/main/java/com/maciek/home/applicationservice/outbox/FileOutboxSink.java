@@ -0,0 +1,57 @@
+package com.maciek.home.applicationservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.maciek.home.applicationservice.config.OutboxProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends published applications to a local NDJSON file, one line per event. A batch is forced to disk before
+ * it is reported as delivered. Only present when {@code applications.outbox.directory} is set.
+ */
+@Component
+@ConditionalOnProperty(prefix = "applications.outbox", name = "directory")
+public class FileOutboxSink implements OutboxSink {
+
+    public static final String FILE_NAME = "published-applications.ndjson";
+
+    private final OutboxProperties properties;
+    private final ObjectWriter jsonWriter;
+
+    public FileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.jsonWriter = objectMapper.writerFor(OutboxEvent.class);
+    }
+
+    public Path getFile() {
+        return properties.getDirectory().resolve(FILE_NAME);
+    }
+
+    @Override
+    public synchronized void send(List<OutboxEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        for (OutboxEvent event : events) {
+            jsonWriter.writeValue(lines, event);
+            lines.write('\n');
+        }
+        Files.createDirectories(properties.getDirectory());
+        try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.maciek.home.applicationservice.outbox;
+
+import com.maciek.home.applicationservice.config.OutboxProperties;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.CompressedContentConverter;
+import com.maciek.home.applicationservice.model.OutboxMessage;
+import com.maciek.home.applicationservice.model.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background delivery of the outbox. Due rows are claimed in batches with a lease, handed to the {@link OutboxSink}
+ * outside of any transaction and then marked done, or rescheduled with an exponential backoff when the sink fails.
+ * Claims are stored in the rows, so several instances can share one outbox.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final int PENDING = OutboxMessage.Status.PENDING.ordinal();
+    private static final int DONE = OutboxMessage.Status.DONE.ordinal();
+    private static final int FAILED = OutboxMessage.Status.FAILED.ordinal();
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private static final String CLAIM = "update outbox_message set claimed_by = ?, claimed_until = ? "
+            + "where id in (select id from outbox_message where status = ? and next_attempt_at <= ? "
+            + "and (claimed_until is null or claimed_until < ?) order by id limit ?) "
+            + "and (claimed_until is null or claimed_until < ?)";
+    private static final String SELECT_CLAIMED = "select o.id, o.created_at, o.attempts, "
+            + "a.id, a.name, a.content, a.state, a.rejection_reason, a.version "
+            + "from outbox_message o left join application a on a.id = o.application_id "
+            + "where o.claimed_by = ? and o.status = ? order by o.id";
+    private static final String MARK_DONE = "update outbox_message set status = ?, processed_at = ?, attempts = attempts + 1, "
+            + "claimed_by = null, claimed_until = null where id = ?";
+    private static final String RESCHEDULE = "update outbox_message set status = ?, attempts = ?, next_attempt_at = ?, "
+            + "last_error = ?, claimed_by = null, claimed_until = null where id = ?";
+    private static final String PURGE = "delete from outbox_message where status = ? and processed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink sink;
+    private final CompressedContentConverter contentConverter;
+    private final OutboxProperties properties;
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final Timer sendTimer;
+    private final Timer lagTimer;
+    private final Counter deliveredCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private Thread thread;
+    private long lastPurge;
+
+    // Without a sink, e.g. no file sink directory, this instance only writes outbox rows and cannot be enabled
+    public OutboxDispatcher(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectProvider<OutboxSink> sink,
+                            CompressedContentConverter contentConverter, OutboxProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sink = sink.getIfAvailable();
+        this.contentConverter = contentConverter;
+        this.properties = properties;
+        this.sendTimer = Timer.builder("applications.outbox.send")
+                .description("Time the sink takes to accept one batch")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("applications.outbox.lag")
+                .description("Time from publishing an application until it is delivered")
+                .register(meterRegistry);
+        this.deliveredCounter = Counter.builder("applications.outbox.delivered")
+                .description("Outbox messages delivered to the sink")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("applications.outbox.retried")
+                .description("Outbox messages rescheduled after a failed delivery")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("applications.outbox.failed")
+                .description("Outbox messages given up after the maximum number of attempts")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        requireSink();
+        running = true;
+        thread = new Thread(this::run, "outbox-dispatcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Outbox dispatcher started, batch size {}", properties.getBatchSize());
+    }
+
+    // A batch being sent is finished, rows still pending stay for the next start or another instance
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        wakeUps.release();
+        thread.join();
+        log.info("Outbox dispatcher stopped");
+    }
+
+    // Saves waiting for the next poll when this instance published something
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ApplicationChangedEvent event) {
+        if (event.getState() == State.PUBLISHED && wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    /**
+     * Claims and delivers one batch of due messages.
+     *
+     * @return the number of messages claimed, a full batch means more may be waiting
+     */
+    public int dispatch() {
+        requireSink();
+        String claim = UUID.randomUUID().toString();
+        List<OutboxEvent> events = claim(claim);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            sendTimer.recordCallable(() -> {
+                sink.send(events);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Cannot deliver {} outbox messages", events.size(), e);
+            reschedule(events, e);
+            return events.size();
+        }
+        markDone(events);
+        return events.size();
+    }
+
+    private void requireSink() {
+        if (sink == null) {
+            throw new IllegalStateException("Outbox delivery needs applications.outbox.directory or an OutboxSink bean");
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (dispatch() < properties.getBatchSize()) {
+                    wakeUps.tryAcquire(properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUps.drainPermits();
+                }
+                purgeDelivered();
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Outbox dispatch failed, retrying in {}", properties.getPollInterval(), e);
+                sleep();
+            } catch (RuntimeException e) {
+                // Like a missing sink or a row that cannot be mapped, the thread stays alive so the pile-up is logged
+                log.error("Outbox dispatch failed unexpectedly, retrying in {}", properties.getPollInterval(), e);
+                sleep();
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+    }
+
+    private List<OutboxEvent> claim(String claim) {
+        long now = System.currentTimeMillis();
+        long leaseEnd = now + properties.getLease().toMillis();
+        return transactionTemplate.execute(status -> {
+            int claimed = jdbcTemplate.update(CLAIM, claim, leaseEnd, PENDING, now, now, properties.getBatchSize(), now);
+            if (claimed == 0) {
+                return List.of();
+            }
+            State[] states = State.values();
+            return jdbcTemplate.query(SELECT_CLAIMED, (rs, rowNum) -> {
+                long applicationId = rs.getLong(4);
+                // Published applications cannot be deleted, a missing row is delivered without the application
+                Application application = rs.wasNull() ? null : new Application(applicationId, rs.getString(5),
+                        contentConverter.convertToEntityAttribute(rs.getBytes(6)), states[rs.getInt(7)], rs.getString(8), rs.getLong(9));
+                return new ClaimedEvent(rs.getLong(1), Instant.ofEpochMilli(rs.getLong(2)), application, rs.getInt(3));
+            }, claim, PENDING);
+        });
+    }
+
+    private void markDone(List<OutboxEvent> events) {
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            rows.add(new Object[]{DONE, now, event.getMessageId()});
+            lagTimer.record(now - event.getPublishedAt().toEpochMilli(), TimeUnit.MILLISECONDS);
+        }
+        jdbcTemplate.batchUpdate(MARK_DONE, rows);
+        deliveredCounter.increment(events.size());
+        log.debug("Delivered {} outbox messages", events.size());
+    }
+
+    private void reschedule(List<OutboxEvent> events, Exception cause) {
+        long now = System.currentTimeMillis();
+        String error = String.valueOf(cause);
+        error = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        List<Object[]> rows = new ArrayList<>(events.size());
+        int failed = 0;
+        for (OutboxEvent event : events) {
+            int attempts = ((ClaimedEvent) event).attempts + 1;
+            boolean givenUp = attempts >= properties.getMaxAttempts();
+            failed += givenUp ? 1 : 0;
+            rows.add(new Object[]{givenUp ? FAILED : PENDING, attempts, now + backoffMillis(attempts), error,
+                    event.getMessageId()});
+        }
+        jdbcTemplate.batchUpdate(RESCHEDULE, rows);
+        retriedCounter.increment(events.size() - failed);
+        if (failed > 0) {
+            failedCounter.increment(failed);
+            log.error("Gave up {} outbox messages after {} attempts", failed, properties.getMaxAttempts());
+        }
+    }
+
+    // Initial backoff doubled for every attempt after the first, capped by the maximum
+    long backoffMillis(int attempts) {
+        long max = properties.getMaxBackoff().toMillis();
+        long backoff = properties.getInitialBackoff().toMillis();
+        for (int attempt = 1; attempt < attempts && backoff < max; attempt++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, max);
+    }
+
+    private void purgeDelivered() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurge = now;
+        int purged = jdbcTemplate.update(PURGE, DONE, now - properties.getRetention().toMillis());
+        if (purged > 0) {
+            log.info("Purged {} delivered outbox messages", purged);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.getPollInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // Carries the attempts so far along to the reschedule, the sink only sees the event
+    private static class ClaimedEvent extends OutboxEvent {
+
+        private final int attempts;
+
+        ClaimedEvent(long messageId, Instant publishedAt, Application application, int attempts) {
+            super(messageId, publishedAt, application);
+            this.attempts = attempts;
+        }
+    }
+}
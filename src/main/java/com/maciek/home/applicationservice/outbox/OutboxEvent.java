@@ -0,0 +1,23 @@
+package com.maciek.home.applicationservice.outbox;
+
+import com.maciek.home.applicationservice.model.Application;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Published application as handed to an {@link OutboxSink}. Delivery is at least once, a message redelivered
+ * after a failure or an expired claim keeps its id, so receivers can drop duplicates.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OutboxEvent {
+
+    private final long messageId;
+    private final Instant publishedAt;
+    // Published is a final state, so the row read at delivery is the one that was published
+    private final Application application;
+}
@@ -0,0 +1,13 @@
+package com.maciek.home.applicationservice.outbox;
+
+import java.util.List;
+
+/**
+ * Downstream receiver of published applications. A batch counts as delivered when the call returns, any exception
+ * makes the dispatcher retry the whole batch later. The file sink is used when its directory is configured,
+ * unless another sink is marked primary.
+ */
+public interface OutboxSink {
+
+    void send(List<OutboxEvent> events) throws Exception;
+}
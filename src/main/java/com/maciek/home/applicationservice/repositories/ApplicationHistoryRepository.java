@@ -0,0 +1,14 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+
+import java.util.List;
+
+/**
+ * Audit history read through the Envers AuditReader. Has to be called inside a transaction.
+ */
+public interface ApplicationHistoryRepository {
+
+    // Newest first, revisions older than beforeRevision when it is not null, fields are projected without loading entities
+    List<ApplicationRevision> findRevisions(long id, Integer beforeRevision, int limit);
+}
@@ -0,0 +1,50 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.State;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.envers.query.AuditEntity;
+import org.hibernate.envers.query.AuditQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ApplicationHistoryRepositoryImpl implements ApplicationHistoryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ApplicationRevision> findRevisions(long id, Integer beforeRevision, int limit) {
+        // Projections make Envers select the columns only, instead of one hydrated entity per revision
+        AuditQuery query = AuditReaderFactory.get(entityManager).createQuery()
+                .forRevisionsOfEntity(Application.class, false, true)
+                .addProjection(AuditEntity.revisionNumber())
+                .addProjection(AuditEntity.revisionType())
+                .addProjection(AuditEntity.revisionProperty("timestamp"))
+                .addProjection(AuditEntity.property("name"))
+                .addProjection(AuditEntity.property("state"))
+                .addProjection(AuditEntity.property("rejectionReason"))
+                .addProjection(AuditEntity.property("content"))
+                .add(AuditEntity.id().eq(id))
+                .addOrder(AuditEntity.revisionNumber().desc())
+                .setMaxResults(limit);
+        if (beforeRevision != null) {
+            query.add(AuditEntity.revisionNumber().lt(beforeRevision));
+        }
+        List<Object[]> rows = query.getResultList();
+        List<ApplicationRevision> revisions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            revisions.add(new ApplicationRevision(((Number) row[0]).intValue(), (RevisionType) row[1],
+                    Instant.ofEpochMilli(((Number) row[2]).longValue()), (String) row[3], (State) row[4],
+                    (String) row[5], (String) row[6]));
+        }
+        return revisions;
+    }
+}
@@ -1,23 +1,109 @@
 package com.maciek.home.applicationservice.repositories;
 
 import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationSummary;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.StateCount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Pageable;
+
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface ApplicationRepository extends JpaRepository<Application, Long> {
+public interface ApplicationRepository extends JpaRepository<Application, Long>, ApplicationTransitionRepository,
+        ApplicationHistoryRepository {
+
+    // Summaries are built from three columns by the query, no entity enters the persistence context
+    String SELECT_SUMMARY = "select new com.maciek.home.applicationservice.model.ApplicationSummary(a.id, a.name, a.state) "
+            + "from Application a ";
+
+    // Whole applications, content included. It is a lazy attribute, "fetch all properties" selects it in the same
+    // statement instead of one more select per application.
+    String SELECT_WITH_CONTENT = "select a from Application a fetch all properties ";
+
+    @Query(SELECT_WITH_CONTENT + "where a.id = :id")
+    Optional<Application> findWithContentById(@Param("id") Long id);
+
+    @Query(SELECT_WITH_CONTENT)
+    List<Application> findAllWithContent();
+
+    // Static ORDER BY for the listings, id keeps the order stable between pages
+    @Query(SELECT_WITH_CONTENT + "order by a.state asc, a.id asc")
+    List<Application> findAllByOrderByStateAscIdAsc(Pageable pageable);
+
+    @Query(SELECT_WITH_CONTENT + "order by a.state desc, a.id desc")
+    List<Application> findAllByOrderByStateDescIdDesc(Pageable pageable);
+
+    @Query(SELECT_WITH_CONTENT + "order by a.name asc, a.id asc")
+    List<Application> findAllByOrderByNameAscIdAsc(Pageable pageable);
+
+    @Query(SELECT_WITH_CONTENT + "order by a.name desc, a.id desc")
+    List<Application> findAllByOrderByNameDescIdDesc(Pageable pageable);
+
+    // Keyset (seek) pages, continue right after the (name, id) or (state, id) of the previous page.
+    // The leading >= / <= on the sort column lets the composite index do a range scan.
+    @Query(SELECT_WITH_CONTENT + "where a.name >= :name and (a.name > :name or a.id > :id) order by a.name asc, a.id asc")
+    List<Application> findNameAscAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_WITH_CONTENT + "where a.name <= :name and (a.name < :name or a.id < :id) order by a.name desc, a.id desc")
+    List<Application> findNameDescAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_WITH_CONTENT + "where a.state >= :state and (a.state > :state or a.id > :id) order by a.state asc, a.id asc")
+    List<Application> findStateAscAfter(@Param("state") State state, @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_WITH_CONTENT + "where a.state <= :state and (a.state < :state or a.id < :id) order by a.state desc, a.id desc")
+    List<Application> findStateDescAfter(@Param("state") State state, @Param("id") Long id, Pageable pageable);
+
+    // Summary variants of the listings above, same order and seek conditions
+    @Query(SELECT_SUMMARY)
+    List<ApplicationSummary> findAllSummaries();
+
+    @Query(SELECT_SUMMARY + "order by a.name asc, a.id asc")
+    List<ApplicationSummary> findSummariesByNameAsc(Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "order by a.name desc, a.id desc")
+    List<ApplicationSummary> findSummariesByNameDesc(Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "order by a.state asc, a.id asc")
+    List<ApplicationSummary> findSummariesByStateAsc(Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "order by a.state desc, a.id desc")
+    List<ApplicationSummary> findSummariesByStateDesc(Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "where a.name >= :name and (a.name > :name or a.id > :id) order by a.name asc, a.id asc")
+    List<ApplicationSummary> findSummariesNameAscAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "where a.name <= :name and (a.name < :name or a.id < :id) order by a.name desc, a.id desc")
+    List<ApplicationSummary> findSummariesNameDescAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "where a.state >= :state and (a.state > :state or a.id > :id) order by a.state asc, a.id asc")
+    List<ApplicationSummary> findSummariesStateAscAfter(@Param("state") State state, @Param("id") Long id, Pageable pageable);
 
+    @Query(SELECT_SUMMARY + "where a.state <= :state and (a.state < :state or a.id < :id) order by a.state desc, a.id desc")
+    List<ApplicationSummary> findSummariesStateDescAfter(@Param("state") State state, @Param("id") Long id, Pageable pageable);
 
+    @Query("select a.state from Application a where a.id = :id")
+    Optional<State> findStateById(@Param("id") Long id);
 
-    // Enabling static ORDER BY for a query
-    List<Application> findAllByOrderByStateAsc(Pageable pageable);
-    List<Application> findAllByOrderByStateDesc(Pageable pageable);
+    @Query("select a.version from Application a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 
+    @Query("select a.state as state, count(a) as total from Application a group by a.state")
+    List<StateCount> countByState();
 
-    // Enabling static ORDER BY for a query
-    List<Application> findAllByOrderByNameAsc(Pageable pageable);
-    List<Application> findAllByOrderByNameDesc(Pageable pageable);
+    // Forward-only cursor over the whole table, must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = READ_ONLY, value = "true")})
+    @Query(SELECT_WITH_CONTENT)
+    Stream<Application> streamAll();
 
 }
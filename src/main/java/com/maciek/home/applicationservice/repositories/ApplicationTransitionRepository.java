@@ -0,0 +1,27 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionResult;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Set-based state changes, which bypass entity loading and therefore write their Envers audit rows themselves.
+ * Has to be called inside a transaction.
+ */
+public interface ApplicationTransitionRepository {
+
+    // State every found id had before, rows in one of the allowed states have been moved, missing ids are left out
+    Map<Long, State> transitionAll(Collection<Long> ids, Transition transition, String rejectionReason);
+
+    // Outcome with the state the row has been moved from, or the state it stays in. Checked and moved by a conditional
+    // UPDATE per allowed source state, the row is only read when none of them matched. A non-null expected version is
+    // part of the UPDATE, a row with another version (or none) fails with ObjectOptimisticLockingFailureException.
+    TransitionResult transition(long id, Transition transition, String rejectionReason, Long expectedVersion);
+
+    // True when the row was in the given state and has been removed, decided by a single conditional DELETE that also
+    // compares a non-null expected version
+    boolean deleteInState(long id, State state, Long expectedVersion);
+}
@@ -0,0 +1,213 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.audit.ApplicationAuditLog;
+import com.maciek.home.applicationservice.audit.AuditRecord;
+import com.maciek.home.applicationservice.config.BulkProperties;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionResult;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.RevisionType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+public class ApplicationTransitionRepositoryImpl implements ApplicationTransitionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final BulkProperties bulkProperties;
+    private final ApplicationAuditLog auditLog;
+
+    public ApplicationTransitionRepositoryImpl(BulkProperties bulkProperties, ApplicationAuditLog auditLog) {
+        this.bulkProperties = bulkProperties;
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    public Map<Long, State> transitionAll(Collection<Long> ids, Transition transition, String rejectionReason) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, State> previousStates = new HashMap<>();
+        int chunkSize = bulkProperties.getChunkSize();
+
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            Map<Long, State> currentStates = lockStates(chunk);
+            List<Long> applicable = new ArrayList<>();
+            currentStates.forEach((id, state) -> {
+                if (transition.isAllowedFrom(state)) {
+                    applicable.add(id);
+                }
+            });
+            if (!applicable.isEmpty()) {
+                int updated = updateStates(applicable, transition, rejectionReason, transition.getAllowedFrom(), null);
+                log.debug("{} moved {} of {} applications to {}", transition, updated, chunk.size(), transition.getTarget());
+                audit(applicable);
+            }
+            previousStates.putAll(currentStates);
+        }
+        return previousStates;
+    }
+
+    @Override
+    public TransitionResult transition(long id, Transition transition, String rejectionReason, Long expectedVersion) {
+        // One conditional UPDATE per source state, so the state the row left is known without reading it
+        List<Long> ids = List.of(id);
+        for (State from : transition.getAllowedFrom()) {
+            if (updateStates(ids, transition, rejectionReason, Set.of(from), expectedVersion) > 0) {
+                audit(ids);
+                return TransitionResult.applied(from);
+            }
+        }
+        // Read only when nothing matched, to tell the outcomes apart
+        Object[] row = findStateAndVersion(id);
+        requireVersion(id, expectedVersion, row == null ? null : (Long) row[1]);
+        return row == null ? TransitionResult.notFound() : TransitionResult.wrongState((State) row[0]);
+    }
+
+    @Override
+    public boolean deleteInState(long id, State state, Long expectedVersion) {
+        Query delete = entityManager.createQuery(expectedVersion != null
+                        ? "delete from Application a where a.id = :id and a.state = :state and a.version = :version"
+                        : "delete from Application a where a.id = :id and a.state = :state")
+                .setParameter("id", id)
+                .setParameter("state", state);
+        if (expectedVersion != null) {
+            delete.setParameter("version", expectedVersion);
+        }
+        if (delete.executeUpdate() == 0) {
+            if (expectedVersion != null) {
+                requireVersion(id, expectedVersion, findVersion(id));
+            }
+            return false;
+        }
+        if (auditLog.isAsync()) {
+            auditLog.record(List.of(AuditRecord.deleted(id)));
+            return true;
+        }
+        // Envers does not keep the data of deleted rows by default, only the fact of removal
+        entityManager.createNativeQuery("insert into application_aud (id, rev, revtype) values (:id, :rev, :revtype)")
+                .setParameter("id", id)
+                .setParameter("rev", currentRevision())
+                .setParameter("revtype", RevisionType.DEL.getRepresentation())
+                .executeUpdate();
+        return true;
+    }
+
+    // A write that matched no row tells apart a version it did not find from a row in the wrong state
+    private static void requireVersion(long id, Long expectedVersion, Long version) {
+        if (expectedVersion != null && !expectedVersion.equals(version)) {
+            throw new ObjectOptimisticLockingFailureException(Application.class, id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Long findVersion(long id) {
+        List<Long> versions = entityManager.createQuery("select a.version from Application a where a.id = :id")
+                .setParameter("id", id)
+                .getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    // State and version of the row, null when it does not exist
+    @SuppressWarnings("unchecked")
+    private Object[] findStateAndVersion(long id) {
+        List<Object[]> rows = entityManager.createQuery("select a.state, a.version from Application a where a.id = :id")
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Rows stay locked until commit, so the states read here are the ones the update sees
+    @SuppressWarnings("unchecked")
+    private Map<Long, State> lockStates(List<Long> ids) {
+        List<Object[]> rows = entityManager
+                .createNativeQuery("select id, state from application where id in (:ids) for update")
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Long, State> states = new HashMap<>();
+        State[] values = State.values();
+        for (Object[] row : rows) {
+            states.put(((Number) row[0]).longValue(), values[((Number) row[1]).intValue()]);
+        }
+        return states;
+    }
+
+    private int updateStates(List<Long> ids, Transition transition, String rejectionReason, Set<State> allowedFrom,
+                             Long expectedVersion) {
+        String jpql = transition == Transition.REJECT
+                ? "update Application a set a.state = :target, a.rejectionReason = :reason, a.version = a.version + 1 where a.id in :ids and a.state in :allowedFrom"
+                : "update Application a set a.state = :target, a.version = a.version + 1 where a.id in :ids and a.state in :allowedFrom";
+        if (expectedVersion != null) {
+            jpql += " and a.version = :version";
+        }
+        Query query = entityManager.createQuery(jpql)
+                .setParameter("target", transition.getTarget())
+                .setParameter("ids", ids)
+                .setParameter("allowedFrom", allowedFrom);
+        if (transition == Transition.REJECT) {
+            query.setParameter("reason", rejectionReason);
+        }
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        return query.executeUpdate();
+    }
+
+    // Bulk updates are invisible to Envers, so copy the new row versions into the audit table under the current revision
+    private void audit(List<Long> ids) {
+        if (auditLog.isAsync()) {
+            auditLog.record(snapshot(ids));
+            return;
+        }
+        int revision = currentRevision();
+        entityManager.createNativeQuery("insert into application_aud (id, rev, revtype, content, name, rejection_reason, state) "
+                        + "select id, :rev, :revtype, content, name, rejection_reason, state from application where id in (:ids)")
+                .setParameter("rev", revision)
+                .setParameter("revtype", RevisionType.MOD.getRepresentation())
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    // Rows as they are after the update, written by the audit writer once the transaction commits. Selected with
+    // JPQL, so the content comes through its converter without loading entities.
+    @SuppressWarnings("unchecked")
+    private List<AuditRecord> snapshot(List<Long> ids) {
+        List<Object[]> rows = entityManager
+                .createQuery("select a.id, a.name, a.content, a.state, a.rejectionReason from Application a where a.id in :ids")
+                .setParameter("ids", ids)
+                .getResultList();
+        List<AuditRecord> records = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            records.add(new AuditRecord((Long) row[0], RevisionType.MOD, (String) row[1], (String) row[2],
+                    (State) row[3], (String) row[4]));
+        }
+        return records;
+    }
+
+    // Revision shared by everything audited in the current transaction, flushed so audit rows can reference it.
+    // Envers 5.4 deprecates this call without a replacement, it is the only way to join the revision Envers itself
+    // uses for the entity changes of the same transaction instead of inserting a second one.
+    @SuppressWarnings("deprecation")
+    private int currentRevision() {
+        int revision = AuditReaderFactory.get(entityManager)
+                .getCurrentRevision(DefaultRevisionEntity.class, true)
+                .getId();
+        entityManager.flush();
+        return revision;
+    }
+}
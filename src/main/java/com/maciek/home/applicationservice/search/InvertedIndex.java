@@ -0,0 +1,167 @@
+package com.maciek.home.applicationservice.search;
+
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.model.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Term to document postings of application names and contents, not thread safe. Documents are numbered densely in
+ * the order they are added, every put of an application adds a new document and marks the previous one deleted.
+ * Queries match applications containing all terms and rank them with BM25.
+ */
+final class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final byte DELETED = -1;
+    private static final State[] STATES = State.values();
+    // Lowest score evicted first, among equal scores the higher id
+    private static final Comparator<SearchHit> WORST_FIRST =
+            Comparator.comparingDouble(SearchHit::getScore).thenComparing(SearchHit::getId, Comparator.reverseOrder());
+
+    private final int nameWeight;
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> docsById = new HashMap<>();
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private byte[] states = new byte[1024];
+    private int[] lengths = new int[1024];
+    private int docCount;
+    private int liveCount;
+    private long liveLength;
+
+    InvertedIndex(int nameWeight) {
+        this.nameWeight = nameWeight;
+    }
+
+    void put(long id, String name, String content, State state) {
+        remove(id);
+        Map<String, Integer> frequencies = new HashMap<>();
+        Tokenizer.tokens(name).forEach(term -> frequencies.merge(term, nameWeight, Integer::sum));
+        Tokenizer.tokens(content).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        int doc = docCount++;
+        ensureCapacity(docCount);
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(doc, entry.getValue());
+            length += entry.getValue();
+        }
+        ids[doc] = id;
+        names[doc] = name;
+        states[doc] = (byte) state.ordinal();
+        lengths[doc] = length;
+        docsById.put(id, doc);
+        liveCount++;
+        liveLength += length;
+    }
+
+    void setState(long id, State state) {
+        Integer doc = docsById.get(id);
+        if (doc != null) {
+            states[doc] = (byte) state.ordinal();
+        }
+    }
+
+    void remove(long id) {
+        Integer doc = docsById.remove(id);
+        if (doc != null) {
+            states[doc] = DELETED;
+            names[doc] = null;
+            liveCount--;
+            liveLength -= lengths[doc];
+        }
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    int staleCount() {
+        return docCount - liveCount;
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    // Releases the spare capacity once a rebuild added everything
+    void trim() {
+        postings.values().forEach(PostingList::trim);
+    }
+
+    List<SearchHit> search(String query, State state, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokens(query)));
+        if (terms.isEmpty() || liveCount == 0) {
+            return List.of();
+        }
+        PostingList[] lists = new PostingList[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(terms.get(i));
+            if (lists[i] == null) {
+                return List.of();
+            }
+        }
+        // The shortest list drives the intersection, the others are only probed
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+        double[] idf = new double[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            double frequency = Math.min(lists[i].size(), liveCount);
+            idf[i] = Math.log(1 + (liveCount - frequency + 0.5) / (frequency + 0.5));
+        }
+        double averageLength = (double) liveLength / liveCount;
+        int[] positions = new int[lists.length];
+        PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+
+        PostingList driver = lists[0];
+        candidates:
+        for (int position = 0; position < driver.size(); position++) {
+            int doc = driver.doc(position);
+            if (states[doc] == DELETED || (state != null && states[doc] != state.ordinal())) {
+                continue;
+            }
+            double normalization = K1 * (1 - B + B * lengths[doc] / averageLength);
+            double score = idf[0] * bm25(driver.frequency(position), normalization);
+            for (int i = 1; i < lists.length; i++) {
+                positions[i] = lists[i].advance(positions[i], doc);
+                if (positions[i] == lists[i].size()) {
+                    break candidates;
+                }
+                if (lists[i].doc(positions[i]) != doc) {
+                    continue candidates;
+                }
+                score += idf[i] * bm25(lists[i].frequency(positions[i]), normalization);
+            }
+            if (best.size() < limit) {
+                best.add(new SearchHit(ids[doc], names[doc], STATES[states[doc]], score));
+            } else if (score > best.peek().getScore()) {
+                best.poll();
+                best.add(new SearchHit(ids[doc], names[doc], STATES[states[doc]], score));
+            }
+        }
+        List<SearchHit> hits = new ArrayList<>(best);
+        hits.sort(WORST_FIRST.reversed());
+        return hits;
+    }
+
+    private static double bm25(int frequency, double normalization) {
+        return frequency * (K1 + 1) / (frequency + normalization);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int grown = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, grown);
+            names = Arrays.copyOf(names, grown);
+            states = Arrays.copyOf(states, grown);
+            lengths = Arrays.copyOf(lengths, grown);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.maciek.home.applicationservice.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing one term in ascending order, with the weighted term frequency in a byte per document.
+ * Documents are only appended, updates add a new document and leave the old one to be skipped as stale.
+ */
+final class PostingList {
+
+    private static final int MAX_FREQUENCY = 255;
+
+    private int[] docs = new int[4];
+    private byte[] frequencies = new byte[4];
+    private int size;
+
+    void add(int doc, int frequency) {
+        if (size == docs.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            docs = Arrays.copyOf(docs, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+        }
+        docs[size] = doc;
+        frequencies[size] = (byte) Math.min(frequency, MAX_FREQUENCY);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int position) {
+        return docs[position];
+    }
+
+    int frequency(int position) {
+        return frequencies[position] & 0xFF;
+    }
+
+    /**
+     * First position at or after {@code from} holding a document not below {@code target}, {@link #size()} when
+     * there is none. Gallops ahead before the binary search, as intersected lists are walked in one direction.
+     */
+    int advance(int from, int target) {
+        if (from >= size || docs[from] >= target) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        int high = from + step;
+        while (high < size && docs[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        int position = Arrays.binarySearch(docs, low + 1, Math.min(high, size - 1) + 1, target);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    void trim() {
+        docs = Arrays.copyOf(docs, size);
+        frequencies = Arrays.copyOf(frequencies, size);
+    }
+}
@@ -0,0 +1,221 @@
+package com.maciek.home.applicationservice.search;
+
+import com.maciek.home.applicationservice.config.SearchProperties;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.events.ChangeType;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Full-text index of application names and contents held in memory, so searching does not touch the database.
+ * Built from the repository once the application is ready and moved along by committed writes: the service hands
+ * over names and contents it writes, transitions and deletes arrive as {@link ApplicationChangedEvent}s.
+ */
+@Slf4j
+@Component
+public class SearchIndex {
+
+    private final ApplicationRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SearchProperties properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer rebuildTimer;
+
+    // Guarded by lock
+    private InvertedIndex index;
+    // Changes committed while a rebuild reads the table, replayed on the new index before it is swapped in
+    private List<Consumer<InvertedIndex>> changesDuringRebuild;
+
+    public SearchIndex(ApplicationRepository repository, EntityManager entityManager,
+                       PlatformTransactionManager transactionManager, SearchProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.index = new InvertedIndex(properties.getNameWeight());
+        Gauge.builder("applications.search.documents", this, SearchIndex::size)
+                .description("Applications in the search index")
+                .register(meterRegistry);
+        Gauge.builder("applications.search.terms", this, SearchIndex::termCount)
+                .description("Distinct words in the search index")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("applications.search.rebuild")
+                .description("Time to build the search index from the database")
+                .register(meterRegistry);
+    }
+
+    public List<SearchHit> search(String query, State state, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, state, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return index.termCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the name and content of applications as they are now, once the current transaction commits.
+     */
+    public void index(Collection<Application> applications) {
+        List<Consumer<InvertedIndex>> changes = new ArrayList<>(applications.size());
+        for (Application application : applications) {
+            long id = application.getId();
+            String name = application.getName();
+            String content = application.getContent();
+            State state = application.getState();
+            changes.add(index -> index.put(id, name, content, state));
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(changes);
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.addAll(changes);
+    }
+
+    // Names and contents are indexed by the service, the event only tells about states
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ApplicationChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            apply(List.of(index -> index.remove(event.getId())));
+        } else if (event.getType() == ChangeType.TRANSITIONED) {
+            apply(List.of(index -> index.setState(event.getId(), event.getState())));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        InvertedIndex rebuilt = new InvertedIndex(properties.getNameWeight());
+        boolean complete = false;
+        try {
+            rebuildTimer.record(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Application> applications = repository.streamAll()) {
+                    applications.forEach(application -> {
+                        rebuilt.put(application.getId(), application.getName(), application.getContent(), application.getState());
+                        entityManager.detach(application);
+                    });
+                }
+            }));
+            rebuilt.trim();
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A failed rebuild keeps serving the previous index
+                if (complete) {
+                    changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    index = rebuilt;
+                }
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Search index built with {} applications and {} words", rebuilt.size(), rebuilt.termCount());
+    }
+
+    // Updates and deletes leave stale postings behind, which searches skip but still walk through
+    @Scheduled(initialDelayString = "${applications.search.compact-interval:PT1M}",
+            fixedDelayString = "${applications.search.compact-interval:PT1M}")
+    public void compact() {
+        int stale;
+        int live;
+        lock.readLock().lock();
+        try {
+            stale = index.staleCount();
+            live = index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (stale > 0 && stale > live * properties.getMaxStaleRatio()) {
+            log.info("Rebuilding search index with {} stale of {} applications", stale, live);
+            rebuild();
+        }
+    }
+
+    private void apply(List<Consumer<InvertedIndex>> changes) {
+        lock.writeLock().lock();
+        try {
+            changes.forEach(change -> change.accept(index));
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.addAll(changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private class Pending implements TransactionSynchronization {
+
+        private final List<Consumer<InvertedIndex>> changes = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            apply(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SearchIndex.this);
+        }
+    }
+}
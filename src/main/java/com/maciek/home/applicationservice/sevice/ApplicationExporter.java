@@ -0,0 +1,124 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.maciek.home.applicationservice.config.ExportProperties;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ExportFormat;
+import com.maciek.home.applicationservice.model.ExportReport;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dumps every application into a local file. Rows come from the forward-only cursor of
+ * {@link ApplicationService#streamAll}, so memory use does not depend on the table size.
+ */
+@Slf4j
+@Component
+public class ApplicationExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+    // Same columns the CSV import reads, plus id and version
+    private static final CSVFormat CSV = CSVFormat.DEFAULT.builder()
+            .setHeader("id", "name", "content", "state", "rejectionReason", "version")
+            .build();
+
+    private final ApplicationService service;
+    private final ExportProperties properties;
+    private final ObjectWriter jsonWriter;
+
+    public ApplicationExporter(ApplicationService service, ExportProperties properties, ObjectMapper objectMapper) {
+        this.service = service;
+        this.properties = properties;
+        this.jsonWriter = objectMapper.writerFor(Application.class);
+    }
+
+    @Scheduled(cron = "${applications.export.cron:-}", zone = "UTC")
+    public void scheduledExport() throws IOException {
+        export(properties.getFormat(), properties.isGzip());
+    }
+
+    public ExportReport export(ExportFormat format, boolean gzip) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(properties.getDirectory());
+        String name = "applications-" + FILE_TIMESTAMP.format(Instant.now()) + "." + format.getExtension()
+                + (gzip ? ".gz" : "");
+        Path target = properties.getDirectory().resolve(name);
+        // Written under a temporary name and moved once complete, so readers never see a partial dump
+        Path part = properties.getDirectory().resolve(name + ".part");
+        long rows;
+        long bytes;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            OutputStream file = Channels.newOutputStream(channel);
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(file, BUFFER_SIZE) : null;
+            OutputStream out = new BufferedOutputStream(compressed != null ? compressed : file, BUFFER_SIZE);
+            rows = format == ExportFormat.CSV ? writeCsv(out) : writeNdjson(out);
+            out.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+            channel.force(false);
+            bytes = channel.size();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        ExportReport report = ExportReport.of(target.toString(), format, gzip, rows, bytes,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Exported {} applications to {}: {} bytes, {} rows/s, {} bytes/s",
+                rows, target, bytes, report.getRowsPerSecond(), report.getBytesPerSecond());
+        return report;
+    }
+
+    private long writeNdjson(OutputStream out) {
+        return service.streamAll(application -> {
+            try {
+                out.write(jsonWriter.writeValueAsBytes(application));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long writeCsv(OutputStream out) throws IOException {
+        // Not closed, closing would close the file channel before it is forced
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        CSVPrinter printer = new CSVPrinter(writer, CSV);
+        long rows = service.streamAll(application -> {
+            try {
+                printer.printRecord(application.getId(), application.getName(), application.getContent(),
+                        application.getState(), application.getRejectionReason(), application.getVersion());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        printer.flush();
+        return rows;
+    }
+}
@@ -0,0 +1,352 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.maciek.home.applicationservice.config.ImportProperties;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.events.ChangeType;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ImportReport;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import com.maciek.home.applicationservice.search.SearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads NDJSON or CSV uploads as a stream and writes the valid rows in transaction-sized batches,
+ * so memory is bounded by the batch size and the line length limit, not by the upload. Imported applications
+ * start as CREATED like the ones created through the API, other states are only reached by transitions.
+ */
+@Slf4j
+@Component
+public class ApplicationImporter {
+
+    private static final CSVFormat CSV = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    private final ApplicationRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImportProperties properties;
+    private final ObjectReader jsonReader;
+    private final SearchIndex searchIndex;
+
+    public ApplicationImporter(ApplicationRepository repository, EntityManager entityManager,
+                               TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                               ImportProperties properties, ObjectMapper objectMapper, SearchIndex searchIndex) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.jsonReader = objectMapper.readerFor(Application.class);
+        this.searchIndex = searchIndex;
+    }
+
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        ImportReport report = new ImportReport(properties.getMaxErrors());
+        Batch batch = new Batch();
+        try (Reader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            NdjsonLines lines = new NdjsonLines(reader, properties.getMaxLineLength());
+            String line;
+            long lineNumber = 0;
+            while ((line = lines.next()) != null) {
+                lineNumber++;
+                if (lines.isTooLong()) {
+                    report.reject(lineNumber, "Line is longer than " + properties.getMaxLineLength() + " characters");
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Application application = jsonReader.readValue(line);
+                    // A literal null is valid JSON, but no application
+                    if (application == null) {
+                        report.reject(lineNumber, "Expected a JSON object, not null");
+                        continue;
+                    }
+                    add(report, batch, lineNumber, application);
+                } catch (JsonProcessingException e) {
+                    report.reject(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+        write(report, batch);
+        log.info("Imported NDJSON applications: {} accepted, {} rejected", report.getAccepted(), report.getRejected());
+        return report;
+    }
+
+    // Header row is required, name and content columns are mandatory, a state column may only say CREATED. A bad header
+    // fails with IllegalArgumentException before anything is written, a record that cannot be read later stops the
+    // import and the report tells how far it got.
+    public ImportReport importCsv(InputStream body) throws IOException {
+        ImportReport report = new ImportReport(properties.getMaxErrors());
+        Batch batch = new Batch();
+        LineLengthLimit limit = new LineLengthLimit(new InputStreamReader(body, StandardCharsets.UTF_8), properties.getMaxLineLength());
+        try (limit; CSVParser parser = parse(limit)) {
+            if (limit.getTooLongLine() == 1) {
+                throw new IllegalArgumentException("CSV header is longer than " + properties.getMaxLineLength() + " characters");
+            }
+            if (!parser.getHeaderMap().containsKey("name") || !parser.getHeaderMap().containsKey("content")) {
+                throw new IllegalArgumentException("CSV header has to contain name and content columns");
+            }
+            // Held back by one, a line over the limit ends the input and leaves a cut record last
+            CSVRecord pending = null;
+            try {
+                for (CSVRecord record : parser) {
+                    if (pending != null) {
+                        add(report, batch, pending);
+                    }
+                    pending = record;
+                }
+                if (limit.getTooLongLine() == 0 && pending != null) {
+                    add(report, batch, pending);
+                }
+            } catch (IllegalStateException | UncheckedIOException e) {
+                // The record before the one that failed is complete
+                if (pending != null) {
+                    add(report, batch, pending);
+                }
+                if (limit.getTooLongLine() == 0) {
+                    report.stop(parser.getCurrentLineNumber() + 1, "Malformed CSV: " + e.getMessage());
+                }
+            }
+            if (limit.getTooLongLine() > 0) {
+                report.stop(limit.getTooLongLine(), "Line " + limit.getTooLongLine() + " is longer than "
+                        + properties.getMaxLineLength() + " characters");
+            }
+        }
+        write(report, batch);
+        log.info("Imported CSV applications: {} accepted, {} rejected{}", report.getAccepted(), report.getRejected(),
+                report.isStopped() ? ", stopped early" : "");
+        return report;
+    }
+
+    private void add(ImportReport report, Batch batch, CSVRecord record) {
+        // Line of the record in the upload, the header is line 1
+        long lineNumber = record.getRecordNumber() + 1;
+        try {
+            add(report, batch, lineNumber, toApplication(record));
+        } catch (IllegalArgumentException e) {
+            report.reject(lineNumber, e.getMessage());
+        }
+    }
+
+    private static CSVParser parse(Reader reader) throws IOException {
+        try {
+            return CSV.parse(reader);
+        } catch (IllegalStateException | UncheckedIOException e) {
+            throw new IllegalArgumentException("Malformed CSV header: " + e.getMessage(), e);
+        }
+    }
+
+    private Application toApplication(CSVRecord record) {
+        String state = column(record, "state");
+        return Application.builder()
+                .name(column(record, "name"))
+                .content(column(record, "content"))
+                .state(state != null ? State.valueOf(state) : State.CREATED)
+                .rejectionReason(column(record, "rejectionReason"))
+                .build();
+    }
+
+    private String column(CSVRecord record, String name) {
+        if (!record.isMapped(name) || !record.isSet(name) || record.get(name).isEmpty()) {
+            return null;
+        }
+        return record.get(name);
+    }
+
+    private void add(ImportReport report, Batch batch, long lineNumber, Application application) {
+        if (!ApplicationServiceImpl.hasNameAndContent(application)) {
+            report.reject(lineNumber, "Name and content cannot be empty");
+            return;
+        }
+        // Anything else would skip the checks of the transitions, e.g. the outbox row of a published application
+        if (application.getState() != null && application.getState() != State.CREATED) {
+            report.reject(lineNumber, "Imported applications start as CREATED, not " + application.getState());
+            return;
+        }
+        if (application.getRejectionReason() != null) {
+            report.reject(lineNumber, "Only rejected applications have a rejection reason");
+            return;
+        }
+        // Imported rows always get new ids
+        application.setId(null);
+        application.setVersion(null);
+        application.setState(State.CREATED);
+        batch.add(lineNumber, application);
+        if (batch.size() >= properties.getBatchSize()) {
+            write(report, batch);
+        }
+    }
+
+    private void write(ImportReport report, Batch batch) {
+        if (batch.size() == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(batch.applications);
+                entityManager.flush();
+                // Nothing of the batch stays in the persistence context
+                entityManager.clear();
+                searchIndex.index(batch.applications);
+                batch.applications.forEach(application -> eventPublisher.publishEvent(
+                        new ApplicationChangedEvent(application.getId(), ChangeType.CREATED, null, application.getState())));
+            });
+            report.accept(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Cannot write batch of {} applications", batch.size(), e);
+            batch.lines.forEach(line -> report.reject(line, "Batch failed: " + e.getMostSpecificCause().getMessage()));
+        }
+        batch.clear();
+    }
+
+    // Ends a CSV upload at the first line longer than the limit, before the parser buffers all of it. The part of that
+    // line already read comes out of the parser as a cut last record, which the importer drops.
+    private static final class LineLengthLimit extends FilterReader {
+
+        private final int maxLineLength;
+        private long line = 1;
+        private int length;
+        private long tooLongLine;
+
+        private LineLengthLimit(Reader in, int maxLineLength) {
+            super(in);
+            this.maxLineLength = maxLineLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (tooLongLine > 0) {
+                return -1;
+            }
+            int c = super.read();
+            if (c >= 0 && !count((char) c)) {
+                return -1;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException {
+            if (tooLongLine > 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, count);
+            for (int i = offset; i < offset + read; i++) {
+                if (!count(buffer[i])) {
+                    return i > offset ? i - offset : -1;
+                }
+            }
+            return read;
+        }
+
+        // Line over the limit, 0 while there is none
+        long getTooLongLine() {
+            return tooLongLine;
+        }
+
+        // False for the first character over the limit
+        private boolean count(char c) {
+            if (c == '\n') {
+                line++;
+                length = 0;
+            } else if (++length > maxLineLength) {
+                tooLongLine = line;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // Lines of an NDJSON upload, the rest of a line longer than the limit is skipped without being buffered
+    private static final class NdjsonLines {
+
+        private final Reader in;
+        private final int maxLineLength;
+        private final StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        private NdjsonLines(Reader in, int maxLineLength) {
+            this.in = in;
+            this.maxLineLength = maxLineLength;
+        }
+
+        // Null at the end of the upload
+        String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            int c;
+            while ((c = in.read()) >= 0 && c != '\n') {
+                if (tooLong) {
+                    continue;
+                }
+                if (line.length() >= maxLineLength) {
+                    tooLong = true;
+                    line.setLength(0);
+                    continue;
+                }
+                line.append((char) c);
+            }
+            if (c < 0 && line.length() == 0 && !tooLong) {
+                return null;
+            }
+            if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            return line.toString();
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+    }
+
+    private static class Batch {
+
+        private final List<Long> lines = new ArrayList<>();
+        private final List<Application> applications = new ArrayList<>();
+
+        void add(long line, Application application) {
+            lines.add(line);
+            applications.add(application);
+        }
+
+        int size() {
+            return applications.size();
+        }
+
+        void clear() {
+            lines.clear();
+            applications.clear();
+        }
+    }
+}
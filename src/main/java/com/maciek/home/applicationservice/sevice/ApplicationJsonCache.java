@@ -0,0 +1,125 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maciek.home.applicationservice.config.JsonCacheProperties;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.model.Application;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * UTF-8 JSON of applications by id and version, so an unchanged application is serialized once and its bytes are
+ * written to every response after. An entry only serves the version it was made from, so a stale one is never
+ * written even before the committed write drops it. Bounded by the total size of the JSON.
+ */
+@Component
+public class ApplicationJsonCache {
+
+    public static final String CACHE_NAME = "applications.json";
+
+    private final ObjectWriter writer;
+    // Null when disabled
+    private final Cache<Long, Fragment> cache;
+
+    public ApplicationJsonCache(ObjectMapper objectMapper, JsonCacheProperties properties, MeterRegistry meterRegistry) {
+        this.writer = objectMapper.writerFor(Application.class);
+        if (!properties.isEnabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((Long id, Fragment fragment) -> fragment.json.length)
+                // Evictions run on the writing thread, so the size gauge never lags behind the entries
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("applications.json.cache.bytes", this, ApplicationJsonCache::cachedBytes)
+                .description("Total size of the cached JSON")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public byte[] json(Application application) {
+        Long id = application.getId();
+        Long version = application.getVersion();
+        // Not saved yet, or built outside of the database, there is no version to tell changes apart
+        if (cache == null || id == null || version == null) {
+            return serialize(application);
+        }
+        Fragment fragment = cache.getIfPresent(id);
+        if (fragment == null || fragment.version != version) {
+            fragment = new Fragment(version, serialize(application));
+            cache.put(id, fragment);
+        }
+        return fragment.json;
+    }
+
+    /**
+     * JSON array of the applications, joined from their cached JSON.
+     */
+    public byte[] jsonArray(List<Application> applications) {
+        byte[][] elements = new byte[applications.size()][];
+        int length = 2 + Math.max(0, elements.length - 1);
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = json(applications.get(i));
+            length += elements[i].length;
+        }
+        byte[] array = new byte[length];
+        int position = 0;
+        array[position++] = '[';
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) {
+                array[position++] = ',';
+            }
+            System.arraycopy(elements[i], 0, array, position, elements[i].length);
+            position += elements[i].length;
+        }
+        array[position] = ']';
+        return array;
+    }
+
+    // Versions make stale entries harmless, dropping them only frees the space early
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ApplicationChangedEvent event) {
+        if (cache != null) {
+            cache.invalidate(event.getId());
+        }
+    }
+
+    private long cachedBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    private byte[] serialize(Application application) {
+        try {
+            return writer.writeValueAsBytes(application);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Fragment {
+
+        private final long version;
+        private final byte[] json;
+
+        private Fragment(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.config.CacheConfig;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.model.Application;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * findById results by id, also the misses when the cache allows null values. Committed writes drop the entry of the id they changed and bump its
+ * invalidation generation. A load only keeps its result when no invalidation of the id happened while it ran, so a
+ * row read before a commit can never be put back after the commit dropped it. Entries are detached copies and every
+ * caller gets its own copy, so nothing a caller changes reaches the cache.
+ */
+@Component
+public class ApplicationNearCache {
+
+    // Generations are kept per stripe of ids, an unrelated write to the same stripe only costs a skipped put
+    private static final int STRIPES = 1024;
+
+    private final Cache cache;
+    private final boolean cacheMissing;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    public ApplicationNearCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(CacheConfig.APPLICATIONS_CACHE);
+        // A cache without null values rejects the put of a miss, so misses are then only loaded
+        this.cacheMissing = !(cache instanceof AbstractValueAdaptingCache)
+                || ((AbstractValueAdaptingCache) cache).isAllowNullValues();
+    }
+
+    public Application get(Long id, Function<Long, Optional<Application>> loader) {
+        Cache.ValueWrapper cached = cache.get(id);
+        if (cached != null) {
+            return copy((Application) cached.get());
+        }
+        int stripe = stripe(id);
+        long generation = generations.get(stripe);
+        Application loaded = loader.apply(id).map(ApplicationNearCache::copy).orElse(null);
+        // Checked again after the put, an invalidation between the check and the put drops the entry it raced with
+        if ((loaded != null || cacheMissing) && generations.get(stripe) == generation) {
+            cache.put(id, loaded);
+            if (generations.get(stripe) != generation) {
+                cache.evict(id);
+            }
+        }
+        return copy(loaded);
+    }
+
+    public void invalidate(Long id) {
+        generations.incrementAndGet(stripe(id));
+        cache.evict(id);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ApplicationChangedEvent event) {
+        invalidate(event.getId());
+    }
+
+    private static int stripe(long id) {
+        return (int) (id ^ (id >>> 32)) & (STRIPES - 1);
+    }
+
+    // Not managed by any persistence context, the content is already loaded
+    private static Application copy(Application application) {
+        if (application == null) {
+            return null;
+        }
+        return new Application(application.getId(), application.getName(), application.getContent(),
+                application.getState(), application.getRejectionReason(), application.getVersion());
+    }
+}
@@ -1,31 +1,69 @@
 package com.maciek.home.applicationservice.sevice;
 
 import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.ApplicationSummary;
+import com.maciek.home.applicationservice.model.RevisionPage;
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.SummaryPage;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
 
 import java.rmi.ServerException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ApplicationService {
 
     Application findById(Long id);
 
+    Long findVersionById(Long id);
+
     List<Application> findAll();
 
+    Map<State, Long> countByState();
+
+    long streamAll(Consumer<Application> consumer);
+
     boolean createNew(Application newApplication) throws ServerException;
 
-    boolean deleteById(Long id);
+    // Writes of a single application take the version the client expects (If-Match), null when it does not care.
+    // A row with another version, or none, fails them with an OptimisticLockingFailureException.
+    boolean deleteById(Long id, Long expectedVersion);
 
     boolean updateById(Long id, Application rejectedApplication);
 
-    boolean rejectById(Long id, Application newApplication);
+    boolean rejectById(Long id, Application newApplication, Long expectedVersion);
+
+    boolean verifyById(Long id, Long expectedVersion);
+
+    boolean acceptById(Long id, Long expectedVersion);
+
+    boolean publishById(Long id, Long expectedVersion);
+
+    Map<Long, TransitionOutcome> transitionAll(Transition transition, List<Long> ids, String rejectionReason);
+
+    ApplicationPage findAllOrderByName(String sort, int page, Integer limit);
+
+    ApplicationPage seekAllOrderByName(String sort, String after, Integer limit);
+
+    ApplicationPage findAllOrderByState(String sort, int page, Integer limit);
+
+    ApplicationPage seekAllOrderByState(String sort, String after, Integer limit);
+
+    List<ApplicationSummary> findAllSummaries();
+
+    SummaryPage findSummariesOrderByName(String sort, int page, Integer limit);
 
-    boolean verifyById(Long id);
+    SummaryPage seekSummariesOrderByName(String sort, String after, Integer limit);
 
-    boolean acceptById(Long id);
+    SummaryPage findSummariesOrderByState(String sort, int page, Integer limit);
 
-    boolean publishById(Long id);
+    SummaryPage seekSummariesOrderByState(String sort, String after, Integer limit);
 
-    List<Application> findAllOrderByName(String sort, int page);
+    RevisionPage findHistory(Long id, String after, Integer limit);
 
-    List<Application> findAllOrderByState(String sort, int page);
+    List<SearchHit> search(String query, String state, Integer limit);
 }
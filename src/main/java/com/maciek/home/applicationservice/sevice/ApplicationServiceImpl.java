@@ -1,86 +1,325 @@
 package com.maciek.home.applicationservice.sevice;
 
+import com.maciek.home.applicationservice.config.BulkProperties;
+import com.maciek.home.applicationservice.config.PagingProperties;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.events.ChangeType;
 import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.ApplicationSummary;
+import com.maciek.home.applicationservice.model.RevisionPage;
+import com.maciek.home.applicationservice.model.SearchHit;
 import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.SummaryPage;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import com.maciek.home.applicationservice.model.TransitionResult;
+import com.maciek.home.applicationservice.outbox.ApplicationOutbox;
 import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import com.maciek.home.applicationservice.search.SearchIndex;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.rmi.ServerException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.maciek.home.applicationservice.model.State.ACCEPTED;
 import static com.maciek.home.applicationservice.model.State.CREATED;
-import static com.maciek.home.applicationservice.model.State.PUBLISHED;
-import static com.maciek.home.applicationservice.model.State.REJECTED;
 import static com.maciek.home.applicationservice.model.State.VERIFIED;
 
 @Slf4j
 @Service
 public class ApplicationServiceImpl implements ApplicationService {
 
+    private static final String NAME_CURSOR = "name";
+    private static final String STATE_CURSOR = "state";
+    private static final String REVISION_CURSOR = "revision";
+
     private final ApplicationRepository repository;
+    private final PagingProperties pagingProperties;
+    private final BulkProperties bulkProperties;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StateCounters stateCounters;
+    private final TransitionCounters transitionCounters;
+    private final ApplicationOutbox outbox;
+    private final SearchIndex searchIndex;
+    private final ApplicationNearCache nearCache;
 
-    public ApplicationServiceImpl(ApplicationRepository repository) {
+    public ApplicationServiceImpl(ApplicationRepository repository, PagingProperties pagingProperties,
+                                  BulkProperties bulkProperties, EntityManager entityManager,
+                                  ApplicationEventPublisher eventPublisher, StateCounters stateCounters,
+                                  TransitionCounters transitionCounters, ApplicationOutbox outbox,
+                                  SearchIndex searchIndex, ApplicationNearCache nearCache) {
         this.repository = repository;
+        this.pagingProperties = pagingProperties;
+        this.bulkProperties = bulkProperties;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.stateCounters = stateCounters;
+        this.transitionCounters = transitionCounters;
+        this.outbox = outbox;
+        this.searchIndex = searchIndex;
+        this.nearCache = nearCache;
     }
 
     @Override
     public Application findById(Long id) {
-        Optional<Application> application = repository.findById(id);
-        return application.orElse(null);
+        // Cached and serialized after the transaction, so the lazy content has to be loaded here
+        return nearCache.get(id, repository::findWithContentById);
+    }
+
+    @Override
+    public Long findVersionById(Long id) {
+        return repository.findVersionById(id).orElse(null);
     }
 
+    // Read-only transactions keep no snapshots for dirty checking and are never flushed
     @Override
+    @Transactional(readOnly = true)
     public List<Application> findAll() {
-        return new ArrayList<>(repository.findAll());
+        return repository.findAllWithContent();
+    }
+
+    @Override
+    public Map<State, Long> countByState() {
+        return stateCounters.snapshot();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamAll(Consumer<Application> consumer) {
+        long count = 0;
+        try (Stream<Application> applications = repository.streamAll()) {
+            Iterator<Application> iterator = applications.iterator();
+            while (iterator.hasNext()) {
+                Application application = iterator.next();
+                consumer.accept(application);
+                // Drop it from the persistence context, so memory does not grow with the row count
+                entityManager.detach(application);
+                count++;
+            }
+        }
+        log.info("Streamed {} applications", count);
+        return count;
     }
 
     @Override
-    public List<Application> findAllOrderByName(String sort, int page) {
+    @Transactional(readOnly = true)
+    public ApplicationPage findAllOrderByName(String sort, int page, Integer limit) {
+        int size = pagingProperties.resolve(limit);
         List<Application> sortedApplications;
 
-        if (StringUtils.equalsIgnoreCase("asc", sort)) {
+        if (parseDirection(sort).isAscending()) {
             log.info("Sorting applications by name Ascending");
-            sortedApplications = (repository.findAllByOrderByNameAsc(PageRequest.of(page, 10)));
-        } else if (StringUtils.equalsIgnoreCase("desc", sort)) {
+            sortedApplications = repository.findAllByOrderByNameAscIdAsc(PageRequest.of(page, size));
+        } else {
             log.info("Sorting applications by name  Descending");
-            sortedApplications = (repository.findAllByOrderByNameDesc(PageRequest.of(page, 10)));
+            sortedApplications = repository.findAllByOrderByNameDescIdDesc(PageRequest.of(page, size));
+        }
+        return toPage(sortedApplications, size, NAME_CURSOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ApplicationPage seekAllOrderByName(String sort, String after, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        PageCursor cursor = PageCursor.decode(after, NAME_CURSOR);
+        List<Application> sortedApplications;
+
+        if (parseDirection(sort).isAscending()) {
+            log.info("Seeking applications by name Ascending after id: {}", cursor.getId());
+            sortedApplications = repository.findNameAscAfter(cursor.getKey(), cursor.getId(), PageRequest.of(0, size));
         } else {
-            log.info("Cannot obtain sorting param, getting unsorted applications");
-            sortedApplications = repository.findAll();
+            log.info("Seeking applications by name Descending after id: {}", cursor.getId());
+            sortedApplications = repository.findNameDescAfter(cursor.getKey(), cursor.getId(), PageRequest.of(0, size));
         }
-        return sortedApplications;
+        return toPage(sortedApplications, size, NAME_CURSOR);
     }
 
     @Override
-    public List<Application> findAllOrderByState(String sort, int page) {
+    @Transactional(readOnly = true)
+    public ApplicationPage findAllOrderByState(String sort, int page, Integer limit) {
+        int size = pagingProperties.resolve(limit);
         List<Application> sortedApplications;
-        if (StringUtils.equalsIgnoreCase("asc", sort)) {
+
+        if (parseDirection(sort).isAscending()) {
             log.info("Sorting applications by state Ascending");
-            sortedApplications = (repository.findAllByOrderByStateAsc(PageRequest.of(page, 10)));
-        } else if (StringUtils.equalsIgnoreCase("desc", sort)) {
+            sortedApplications = repository.findAllByOrderByStateAscIdAsc(PageRequest.of(page, size));
+        } else {
             log.info("Sorting applications by state  Descending");
-            sortedApplications = (repository.findAllByOrderByStateDesc(PageRequest.of(page, 10)));
+            sortedApplications = repository.findAllByOrderByStateDescIdDesc(PageRequest.of(page, size));
+        }
+        return toPage(sortedApplications, size, STATE_CURSOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ApplicationPage seekAllOrderByState(String sort, String after, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        PageCursor cursor = PageCursor.decode(after, STATE_CURSOR);
+        State state = parseState(cursor.getKey());
+        List<Application> sortedApplications;
+
+        if (parseDirection(sort).isAscending()) {
+            log.info("Seeking applications by state Ascending after id: {}", cursor.getId());
+            sortedApplications = repository.findStateAscAfter(state, cursor.getId(), PageRequest.of(0, size));
         } else {
-            log.info("Cannot obtain sorting param, getting unsorted applications");
-            sortedApplications = repository.findAll();
+            log.info("Seeking applications by state Descending after id: {}", cursor.getId());
+            sortedApplications = repository.findStateDescAfter(state, cursor.getId(), PageRequest.of(0, size));
+        }
+        return toPage(sortedApplications, size, STATE_CURSOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ApplicationSummary> findAllSummaries() {
+        return repository.findAllSummaries();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SummaryPage findSummariesOrderByName(String sort, int page, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        List<ApplicationSummary> summaries = parseDirection(sort).isAscending()
+                ? repository.findSummariesByNameAsc(PageRequest.of(page, size))
+                : repository.findSummariesByNameDesc(PageRequest.of(page, size));
+        return toSummaryPage(summaries, size, NAME_CURSOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SummaryPage seekSummariesOrderByName(String sort, String after, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        PageCursor cursor = PageCursor.decode(after, NAME_CURSOR);
+        List<ApplicationSummary> summaries = parseDirection(sort).isAscending()
+                ? repository.findSummariesNameAscAfter(cursor.getKey(), cursor.getId(), PageRequest.of(0, size))
+                : repository.findSummariesNameDescAfter(cursor.getKey(), cursor.getId(), PageRequest.of(0, size));
+        return toSummaryPage(summaries, size, NAME_CURSOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SummaryPage findSummariesOrderByState(String sort, int page, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        List<ApplicationSummary> summaries = parseDirection(sort).isAscending()
+                ? repository.findSummariesByStateAsc(PageRequest.of(page, size))
+                : repository.findSummariesByStateDesc(PageRequest.of(page, size));
+        return toSummaryPage(summaries, size, STATE_CURSOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SummaryPage seekSummariesOrderByState(String sort, String after, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        PageCursor cursor = PageCursor.decode(after, STATE_CURSOR);
+        State state = parseState(cursor.getKey());
+        List<ApplicationSummary> summaries = parseDirection(sort).isAscending()
+                ? repository.findSummariesStateAscAfter(state, cursor.getId(), PageRequest.of(0, size))
+                : repository.findSummariesStateDescAfter(state, cursor.getId(), PageRequest.of(0, size));
+        return toSummaryPage(summaries, size, STATE_CURSOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RevisionPage findHistory(Long id, String after, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        Integer before = after != null ? (int) PageCursor.decode(after, REVISION_CURSOR).getId() : null;
+        // One revision more than the page tells whether there is a next page and is the diff base of the oldest one
+        List<ApplicationRevision> revisions = repository.findRevisions(id, before, size + 1);
+        List<ApplicationRevision> page = new ArrayList<>(size);
+        for (int i = 0; i < Math.min(size, revisions.size()); i++) {
+            ApplicationRevision previous = i + 1 < revisions.size() ? revisions.get(i + 1) : null;
+            page.add(revisions.get(i).comparedTo(previous));
+        }
+        if (revisions.size() <= size) {
+            return new RevisionPage(page, null);
+        }
+        int last = page.get(page.size() - 1).getRevision();
+        return new RevisionPage(page, new PageCursor(REVISION_CURSOR, last, "").encode());
+    }
+
+    @Override
+    public List<SearchHit> search(String query, String state, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is empty");
+        }
+        State wanted = null;
+        if (state != null) {
+            try {
+                wanted = State.valueOf(state.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown state: " + state, e);
+            }
+        }
+        return searchIndex.search(query, wanted, pagingProperties.resolve(limit));
+    }
+
+    private Sort.Direction parseDirection(String sort) {
+        return Sort.Direction.fromOptionalString(sort)
+                .orElseThrow(() -> {
+                    log.warn("Cannot obtain sorting param: {}", sort);
+                    return new IllegalArgumentException("Unknown sorting param: " + sort);
+                });
+    }
+
+    private State parseState(String state) {
+        try {
+            return State.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor contains unknown state: " + state, e);
+        }
+    }
+
+    // A full page means there may be more rows, so hand out the position of its last row
+    private ApplicationPage toPage(List<Application> applications, int size, String field) {
+        if (applications.isEmpty() || applications.size() < size) {
+            return new ApplicationPage(applications, null);
         }
-        return sortedApplications;
+        Application last = applications.get(applications.size() - 1);
+        return new ApplicationPage(applications, cursorAfter(field, last.getId(), last.getName(), last.getState()));
+    }
+
+    private SummaryPage toSummaryPage(List<ApplicationSummary> summaries, int size, String field) {
+        if (summaries.isEmpty() || summaries.size() < size) {
+            return new SummaryPage(summaries, null);
+        }
+        ApplicationSummary last = summaries.get(summaries.size() - 1);
+        return new SummaryPage(summaries, cursorAfter(field, last.getId(), last.getName(), last.getState()));
+    }
+
+    private static String cursorAfter(String field, long id, String name, State state) {
+        String key = STATE_CURSOR.equals(field) ? state.name() : name;
+        return new PageCursor(field, id, key).encode();
     }
 
 
     @Override
     public boolean createNew(Application newApplication) throws ServerException {
 
-        if (newApplication.getName() != null && !newApplication.getName()
-                .isBlank() && newApplication.getContent() != null && !newApplication.getContent().isBlank()) {
+        if (hasNameAndContent(newApplication)) {
             repository.save(newApplication);
             log.info("New application submitted: {}", newApplication);
+            searchIndex.index(List.of(newApplication));
+            publishChange(newApplication.getId(), ChangeType.CREATED, null, newApplication.getState());
             return true;
         } else {
             log.info("Trying to post element with empty Name and Content");
@@ -89,26 +328,29 @@ public class ApplicationServiceImpl implements ApplicationService {
     }
 
     @Override
-    public boolean deleteById(Long id) {
-        Optional<Application> optionalApplication = repository.findById(id);
-        if (optionalApplication.isPresent()) {
-            State appState = optionalApplication.get().getState();
-            if (appState.equals(CREATED)) {
-                repository.deleteById(id);
-                return true;
-            } else {
-                log.warn("Cannot remove application with id: {}, because it's in state: {}", id, appState);
-            }
+    @Transactional
+    public boolean deleteById(Long id, Long expectedVersion) {
+        if (repository.deleteInState(id, CREATED, expectedVersion)) {
+            publishChange(id, ChangeType.DELETED, CREATED, null);
+            return true;
         }
+        repository.findStateById(id).ifPresent(appState ->
+                log.warn("Cannot remove application with id: {}, because it's in state: {}", id, appState));
         return false;
     }
 
 
     @Override
+    @Transactional
     public boolean updateById(Long id, Application newApplication) {
-        Optional<Application> optionalApplication = repository.findById(id);
+        // Content goes to the search index and the audit row even when only the name changes
+        Optional<Application> optionalApplication = repository.findWithContentById(id);
         if (optionalApplication.isPresent()) {
             Application application = optionalApplication.get();
+            // Version of the request body is the one the client has seen (If-Match), null when it does not care
+            if (newApplication.getVersion() != null && !newApplication.getVersion().equals(application.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Application.class, id);
+            }
             State appState = application.getState();
             if (appState.equals(CREATED) || appState.equals(VERIFIED)) {
                 if (!newApplication.getContent().isEmpty()) {
@@ -118,6 +360,8 @@ public class ApplicationServiceImpl implements ApplicationService {
                     application.setName(newApplication.getName());
                 }
                 repository.save(application);
+                searchIndex.index(List.of(application));
+                publishChange(id, ChangeType.UPDATED, appState, appState);
                 return true;
             } else {
                 log.warn("Cannot update application with id: {}, because it's in state: {}", id, appState);
@@ -127,76 +371,117 @@ public class ApplicationServiceImpl implements ApplicationService {
     }
 
     @Override
-    public boolean rejectById(Long id, Application newApplication) {
-        Optional<Application> optionalApplication = repository.findById(id);
-        if (optionalApplication.isPresent()) {
-            if (newApplication != null && newApplication.getRejectionReason() != null && !newApplication.getRejectionReason().isBlank()) {
-                Application application = optionalApplication.get();
-                State appState = application.getState();
-                if (appState.equals(VERIFIED) || appState.equals(ACCEPTED)) {
-                    application.setState(REJECTED);
-                    application.setRejectionReason(newApplication.getRejectionReason());
-                    repository.save(application);
-                    return true;
-                } else {
-                    log.warn("Cannot reject application with id: {}, because it's in state: {}", id, appState);
-                    return false;
-                }
-            } else {
-                log.warn("Cannot reject application with id: {}, because Request body is empty", id);
+    @Transactional
+    public boolean rejectById(Long id, Application newApplication, Long expectedVersion) {
+        if (newApplication != null && newApplication.getRejectionReason() != null && !newApplication.getRejectionReason().isBlank()) {
+            TransitionResult result = repository.transition(id, Transition.REJECT, newApplication.getRejectionReason(), expectedVersion);
+            if (applied(id, Transition.REJECT, result)) {
+                return true;
+            }
+            if (result.getOutcome() == TransitionOutcome.WRONG_STATE) {
+                log.warn("Cannot reject application with id: {}, because it's in state: {}", id, result.getState());
             }
+        } else {
+            log.warn("Cannot reject application with id: {}, because Request body is empty", id);
         }
         return false;
     }
 
     @Override
-    public boolean verifyById(Long id) {
-        Optional<Application> optionalApplication = repository.findById(id);
-        if (optionalApplication.isPresent()) {
-            Application application = optionalApplication.get();
-            State appState = application.getState();
-            if (appState.equals(CREATED)) {
-                application.setState(VERIFIED);
-                repository.save(application);
-                return true;
-            } else {
-                log.warn("Cannot verify application with id: {}, because it's in state: {}", id, appState);
-            }
+    @Transactional
+    public boolean verifyById(Long id, Long expectedVersion) {
+        TransitionResult result = repository.transition(id, Transition.VERIFY, null, expectedVersion);
+        if (applied(id, Transition.VERIFY, result)) {
+            return true;
+        }
+        if (result.getOutcome() == TransitionOutcome.WRONG_STATE) {
+            log.warn("Cannot verify application with id: {}, because it's in state: {}", id, result.getState());
         }
         return false;
     }
 
     @Override
-    public boolean acceptById(Long id) {
-        Optional<Application> optionalApplication = repository.findById(id);
-        if (optionalApplication.isPresent()) {
-            Application application = optionalApplication.get();
-            State appState = application.getState();
-            if (appState.equals(VERIFIED)) {
-                application.setState(ACCEPTED);
-                repository.save(application);
-                return true;
-            } else {
-                log.warn("Cannot accept application with id: {}, because it's not in state {}", id, VERIFIED);
-            }
+    @Transactional
+    public boolean acceptById(Long id, Long expectedVersion) {
+        TransitionResult result = repository.transition(id, Transition.ACCEPT, null, expectedVersion);
+        if (applied(id, Transition.ACCEPT, result)) {
+            return true;
+        }
+        if (result.getOutcome() == TransitionOutcome.WRONG_STATE) {
+            log.warn("Cannot accept application with id: {}, because it's not in state {}", id, VERIFIED);
         }
         return false;
     }
 
     @Override
-    public boolean publishById(Long id) {
-        Optional<Application> optionalApplication = repository.findById(id);
-        if (optionalApplication.isPresent()) {
-            Application application = optionalApplication.get();
-            State appState = application.getState();
-            if (appState.equals(ACCEPTED)) {
-                application.setState(PUBLISHED);
-                repository.save(application);
-                return true;
+    @Transactional
+    public boolean publishById(Long id, Long expectedVersion) {
+        TransitionResult result = repository.transition(id, Transition.PUBLISH, null, expectedVersion);
+        if (applied(id, Transition.PUBLISH, result)) {
+            outbox.published(List.of(id));
+            return true;
+        }
+        if (result.getOutcome() == TransitionOutcome.WRONG_STATE) {
+            log.warn("Cannot publish application with id: {}, because it's not in state {}", id, ACCEPTED);
+        }
+        return false;
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, TransitionOutcome> transitionAll(Transition transition, List<Long> ids, String rejectionReason) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (ids.size() > bulkProperties.getMaxIds()) {
+            throw new IllegalArgumentException("Cannot transition more than " + bulkProperties.getMaxIds() + " applications at once");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Application ids cannot be null");
+        }
+        if (transition == Transition.REJECT && (rejectionReason == null || rejectionReason.isBlank())) {
+            throw new IllegalArgumentException("Cannot reject applications without rejection reason");
+        }
+        Map<Long, State> previousStates = repository.transitionAll(ids, transition, rejectionReason);
+        Map<Long, TransitionOutcome> outcomes = new LinkedHashMap<>();
+        List<Long> applied = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            State previousState = previousStates.get(id);
+            if (previousState == null) {
+                outcomes.put(id, TransitionOutcome.NOT_FOUND);
+            } else if (transition.isAllowedFrom(previousState)) {
+                outcomes.put(id, TransitionOutcome.APPLIED);
+                applied.add(id);
+                publishChange(id, ChangeType.TRANSITIONED, previousState, transition.getTarget());
             } else {
-                log.warn("Cannot publish application with id: {}, because it's not in state {}", id, ACCEPTED);
+                outcomes.put(id, TransitionOutcome.WRONG_STATE);
             }
         }
-        return false;
+        if (transition == Transition.PUBLISH) {
+            outbox.published(applied);
+        }
+        transitionCounters.countAll(transition, outcomes.values());
+        log.info("{} applied to {} of {} applications", transition, applied.size(), outcomes.size());
+        return outcomes;
+    }
+
+    // Shared with the bulk import and the reactive variant, so all paths accept the same applications
+    public static boolean hasNameAndContent(Application application) {
+        return application.getName() != null && !application.getName().isBlank()
+                && application.getContent() != null && !application.getContent().isBlank();
+    }
+
+    // Counts the outcome of a single transition and announces it when it has been applied
+    private boolean applied(long id, Transition transition, TransitionResult result) {
+        transitionCounters.count(transition, result.getOutcome());
+        if (result.getOutcome() != TransitionOutcome.APPLIED) {
+            return false;
+        }
+        publishChange(id, ChangeType.TRANSITIONED, result.getState(), transition.getTarget());
+        return true;
+    }
+
+    private void publishChange(long id, ChangeType type, State previousState, State state) {
+        eventPublisher.publishEvent(new ApplicationChangedEvent(id, type, previousState, state));
     }
 }
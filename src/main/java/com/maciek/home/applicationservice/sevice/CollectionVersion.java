@@ -0,0 +1,114 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.model.ApplicationView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Change counter of the applications table, exposed as the weak ETag of the list endpoints. Kept in a row of the
+ * change_counter table, so every instance on the same database hands out the same tag for the same data and reading
+ * it is a single primary key lookup. Moved once per writing transaction after its commit, in a short transaction of
+ * its own, so writers never wait for the counter row while holding their own locks. A reader may see the changes a
+ * moment before the counter moves; the tag then moves right after, so a client is at most one poll behind.
+ */
+@Slf4j
+@Component
+public class CollectionVersion {
+
+    private static final String NAME = "application";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate counterTransaction;
+
+    public CollectionVersion(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // The writing transaction's resources are still bound after its commit, a new one keeps the update apart
+        this.counterTransaction = new TransactionTemplate(transactionManager);
+        this.counterTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Registered inside the writing transaction, several changes of one transaction move the counter once
+    @EventListener
+    public void onChange(ApplicationChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // The changes are committed either way, the next write moves the counter again
+                try {
+                    increment();
+                } catch (RuntimeException e) {
+                    log.warn("Cannot move the collection version", e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CollectionVersion.this);
+            }
+        });
+    }
+
+    // For writes that bypass the service and publish no events, like the seeder
+    public void increment() {
+        counterTransaction.executeWithoutResult(status -> incrementCounter());
+    }
+
+    private void incrementCounter() {
+        if (jdbcTemplate.update("update change_counter set changes = changes + 1 where name = ?", NAME) == 0) {
+            insertCounter();
+            jdbcTemplate.update("update change_counter set changes = changes + 1 where name = ?", NAME);
+        }
+    }
+
+    public String etag() {
+        return "W/\"" + current() + "\"";
+    }
+
+    // Each view is a different representation of the same collection version, so it needs its own tag
+    public String etag(ApplicationView view) {
+        if (view == ApplicationView.FULL) {
+            return etag();
+        }
+        return "W/\"" + current() + "-" + view.name().toLowerCase(Locale.ROOT) + "\"";
+    }
+
+    private String current() {
+        List<String> versions = jdbcTemplate.query("select epoch, changes from change_counter where name = ?",
+                (rs, rowNum) -> rs.getLong(1) + "-" + rs.getLong(2), NAME);
+        if (versions.isEmpty()) {
+            insertCounter();
+            return current();
+        }
+        return versions.get(0);
+    }
+
+    // Another instance may create the row at the same time, either one is fine
+    private void insertCounter() {
+        try {
+            jdbcTemplate.update("insert into change_counter (name, epoch, changes) values (?, ?, 0)", NAME,
+                    System.currentTimeMillis());
+        } catch (DuplicateKeyException e) {
+            // created by the other writer
+        }
+    }
+}
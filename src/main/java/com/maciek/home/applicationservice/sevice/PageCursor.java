@@ -0,0 +1,47 @@
+package com.maciek.home.applicationservice.sevice;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row returned by a keyset (seek) page: the sort key and the id used as a tie-breaker.
+ * Encoded as url-safe Base64, so clients treat it as an opaque token.
+ */
+@Getter
+public class PageCursor {
+
+    private final String field;
+    private final long id;
+    private final String key;
+
+    public PageCursor(String field, long id, String key) {
+        this.field = field;
+        this.id = id;
+        this.key = key;
+    }
+
+    public String encode() {
+        String raw = field + ":" + id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor, String expectedField) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+        String[] parts = raw.split(":", 3);
+        if (parts.length != 3 || !parts[0].equals(expectedField)) {
+            throw new IllegalArgumentException("Cursor is not valid for sorting by " + expectedField);
+        }
+        try {
+            return new PageCursor(parts[0], Long.parseLong(parts[1]), parts[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+    }
+}
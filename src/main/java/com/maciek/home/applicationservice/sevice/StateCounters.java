@@ -0,0 +1,111 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.StateCount;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Number of applications per state, kept in memory and moved by committed writes, so reading it does not
+ * touch the database. Seeded from a single GROUP BY query and periodically reconciled with it to repair drift.
+ * Listeners share a read lock, a reconcile replaces the counters under the write lock and only when no listener
+ * ran while it was counting, so it never mixes a change into counts that already contain it. A change that is
+ * committed but not yet applied by its listener can still be counted twice, the next reconcile repairs that.
+ */
+@Slf4j
+@Component
+public class StateCounters {
+
+    // Attempts of a reconcile racing with writes, the next scheduled run tries again
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private final ApplicationRepository repository;
+    private final Map<State, LongAdder> counters = new EnumMap<>(State.class);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Applied changes, tells a reconcile whether its counts are still current
+    private final LongAdder changes = new LongAdder();
+
+    public StateCounters(ApplicationRepository repository) {
+        this.repository = repository;
+        for (State state : State.values()) {
+            counters.put(state, new LongAdder());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ApplicationChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            if (event.getPreviousState() != null) {
+                counters.get(event.getPreviousState()).decrement();
+            }
+            if (event.getState() != null) {
+                counters.get(event.getState()).increment();
+            }
+            changes.increment();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${applications.stats.reconcile-interval:PT5M}",
+            fixedDelayString = "${applications.stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            long seen = changes.sum();
+            Map<State, Long> actual = new EnumMap<>(State.class);
+            for (StateCount count : repository.countByState()) {
+                actual.put(count.getState(), count.getTotal());
+            }
+            lock.writeLock().lock();
+            try {
+                if (changes.sum() == seen) {
+                    replace(actual);
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.debug("State counters changed during {} reconcile attempts, left for the next run", RECONCILE_ATTEMPTS);
+    }
+
+    // Called under the write lock
+    private void replace(Map<State, Long> actual) {
+        for (State state : State.values()) {
+            LongAdder counter = counters.get(state);
+            long total = actual.getOrDefault(state, 0L);
+            long drift = total - counter.sum();
+            if (drift != 0) {
+                counter.reset();
+                counter.add(total);
+                log.debug("Reconciled {} counter by {}", state, drift);
+            }
+        }
+    }
+
+    public Map<State, Long> snapshot() {
+        Map<State, Long> snapshot = new EnumMap<>(State.class);
+        // Never sees a counter a reconcile is replacing
+        lock.readLock().lock();
+        try {
+            counters.forEach((state, counter) -> snapshot.put(state, counter.sum()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,43 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Micrometer counters of transition outcomes, tagged by transition and outcome. Registered up front, so every
+ * combination is exported from the start and counting is a map lookup.
+ */
+@Component
+public class TransitionCounters {
+
+    private final Map<Transition, Map<TransitionOutcome, Counter>> counters = new EnumMap<>(Transition.class);
+
+    public TransitionCounters(MeterRegistry meterRegistry) {
+        for (Transition transition : Transition.values()) {
+            Map<TransitionOutcome, Counter> outcomes = new EnumMap<>(TransitionOutcome.class);
+            for (TransitionOutcome outcome : TransitionOutcome.values()) {
+                outcomes.put(outcome, Counter.builder("applications.transitions")
+                        .description("Requested transitions by outcome")
+                        .tag("transition", transition.name())
+                        .tag("outcome", outcome.name())
+                        .register(meterRegistry));
+            }
+            counters.put(transition, outcomes);
+        }
+    }
+
+    public void count(Transition transition, TransitionOutcome outcome) {
+        counters.get(transition).get(outcome).increment();
+    }
+
+    public void countAll(Transition transition, Collection<TransitionOutcome> outcomes) {
+        outcomes.forEach(outcome -> count(transition, outcome));
+    }
+}
@@ -0,0 +1,13 @@
+package com.maciek.home.applicationservice.contract;
+
+import com.maciek.home.applicationservice.reactive.ReactiveApplicationServiceApplication;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@SpringBootTest(classes = ReactiveApplicationServiceApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+@ExtendWith(SpringExtension.class)
+class ReactiveApplicationApiTest extends ApplicationApiContract {
+}
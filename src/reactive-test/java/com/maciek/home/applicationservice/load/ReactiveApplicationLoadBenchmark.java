@@ -0,0 +1,43 @@
+package com.maciek.home.applicationservice.load;
+
+import com.maciek.home.applicationservice.jmh.BenchmarkContext;
+import com.maciek.home.applicationservice.reactive.ReactiveApplicationServiceApplication;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * {@link ApplicationLoadBenchmark} against the reactive variant, with the same rows, mix and -Dload.* properties, so
+ * the two results files can be compared side by side. Run with
+ * {@code mvn test -P reactive,benchmark -Dtest=ReactiveApplicationLoadBenchmark}, results in
+ * {@code target/reactive-load-results.json}.
+ */
+@SpringBootTest(classes = ReactiveApplicationServiceApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.web-application-type=reactive", "logging.level.com.maciek.home.applicationservice=WARN"})
+@ExtendWith(SpringExtension.class)
+class ReactiveApplicationLoadBenchmark extends ApplicationLoadBenchmark {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    // Same statement as BenchmarkContext.seed, through R2DBC
+    @Override
+    protected void seed(int rows) {
+        databaseClient.sql("insert into application (id, name, content, state, rejection_reason, version) "
+                        + "select :first + x - 1, 'Application ' || lpad(x, 8, '0'), 'Content of application ' || x, mod(x, 5), null, 0 "
+                        + "from system_range(1, :rows)")
+                .bind("first", BenchmarkContext.FIRST_ID)
+                .bind("rows", rows)
+                .fetch()
+                .rowsUpdated()
+                .block();
+    }
+
+    @Override
+    protected String resultsFile() {
+        return "reactive-load-results.json";
+    }
+}
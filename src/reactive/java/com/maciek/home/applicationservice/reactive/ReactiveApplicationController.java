@@ -0,0 +1,251 @@
+package com.maciek.home.applicationservice.reactive;
+
+import com.maciek.home.applicationservice.controllers.ApplicationController;
+import com.maciek.home.applicationservice.controllers.ETags;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.BulkTransitionRequest;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The /applications contract of {@link ApplicationController} on WebFlux. Status codes, headers and bodies are the
+ * same, the list endpoints write rows as the database emits them and as fast as the client reads them.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/applications")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveApplicationController {
+
+    private final ReactiveApplicationService service;
+    private final ReactiveCollectionVersion collectionVersion;
+
+    public ReactiveApplicationController(ReactiveApplicationService service, ReactiveCollectionVersion collectionVersion) {
+        this.service = service;
+        this.collectionVersion = collectionVersion;
+    }
+
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Flux<Application>> getAll(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("Getting all applications");
+        String etag = collectionVersion.etag();
+        if (ETags.matchesWeak(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.findAll());
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Map<State, Long>>> stats() {
+        log.info("Getting number of applications per state");
+        return service.countByState().map(ResponseEntity::ok);
+    }
+
+    // One JSON document per line, each written when the client has asked for more
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Application> streamAll() {
+        log.info("Streaming all applications");
+        return service.findAll();
+    }
+
+    @GetMapping(value = {"/name/{sort}", "/name/{sort}/{page}"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<Application>>> allByName(@PathVariable String sort, @PathVariable(required = false) Integer page,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("Trying to get applications sorted by Name");
+        return listing(ifNoneMatch, () -> after != null
+                ? service.seekAllOrderByName(sort, after, limit)
+                : service.findAllOrderByName(sort, page != null ? page : 0, limit));
+    }
+
+    @GetMapping(value = {"state/{sort}", "/state/{sort}/{page}"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<Application>>> allByState(@PathVariable String sort, @PathVariable(required = false) Integer page,
+                                                              @RequestParam(required = false) String after,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("Trying to get applications sorted by State");
+        return listing(ifNoneMatch, () -> after != null
+                ? service.seekAllOrderByState(sort, after, limit)
+                : service.findAllOrderByState(sort, page != null ? page : 0, limit));
+    }
+
+    @GetMapping(value = "/{id}")
+    public Mono<ResponseEntity<Application>> getById(@PathVariable long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("Trying to get application with id: {}", id);
+        Mono<ResponseEntity<Application>> found = service.findById(id)
+                .map(application -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (application.getVersion() != null) {
+                        response.eTag(ETags.strong(application.getVersion()));
+                    }
+                    return response.body(application);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Cannot find application with id: {}", id);
+                    return ResponseEntity.noContent().build();
+                }));
+        if (ifNoneMatch == null) {
+            return found;
+        }
+        // Only the version is read, the row is loaded when the client copy is stale
+        return service.findVersionById(id)
+                .map(ETags::strong)
+                .filter(etag -> ETags.matchesWeak(ifNoneMatch, etag))
+                .map(this::<Application>notModified)
+                .switchIfEmpty(found);
+    }
+
+    @PostMapping(value = "/create",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Application>> create(@RequestBody Application newApplication) {
+        log.info("Creating new application: {}", newApplication);
+        return service.createNew(newApplication)
+                .map(ResponseEntity::ok)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Cannot create new application without name and content");
+                    return ResponseEntity.noContent().build();
+                }));
+    }
+
+    @PutMapping(value = "/update/{id}")
+    public Mono<ResponseEntity<Application>> updateById(@PathVariable long id, @RequestBody Application application,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Trying to update name and content of application with id: {}", id);
+        // Checked against the row version inside the update transaction and by the versioned UPDATE
+        application.setVersion(ETags.ifMatchVersion(ifMatch));
+        return ifMatched(id, ifMatch, () -> service.updateById(id, application)
+                .map(updated -> updated
+                        ? ResponseEntity.ok(application)
+                        : ResponseEntity.notFound().build()));
+    }
+
+    @PutMapping(value = "/reject/{id}")
+    public Mono<ResponseEntity<Application>> rejectById(@PathVariable long id, @RequestBody Application application,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Trying to reject name and content of application with id: {}", id);
+        return ifMatched(id, ifMatch, () -> service.rejectById(id, application, ETags.ifMatchVersion(ifMatch))
+                .map(rejected -> rejected
+                        ? ResponseEntity.ok(application)
+                        : ResponseEntity.notFound().build()));
+    }
+
+    @PutMapping(value = "/verify/{id}")
+    public Mono<ResponseEntity<Application>> verifyById(@PathVariable long id,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Verifying application with id: {}", id);
+        return ifMatched(id, ifMatch, () -> transitioned(service.verifyById(id, ETags.ifMatchVersion(ifMatch))));
+    }
+
+    @DeleteMapping(value = "/remove/{id}")
+    public Mono<ResponseEntity<Long>> deleteById(@PathVariable long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Trying to remove application with id: {}", id);
+        return ifMatched(id, ifMatch, () -> service.deleteById(id, ETags.ifMatchVersion(ifMatch))
+                .map(deleted -> deleted
+                        ? ResponseEntity.ok().<Long>build()
+                        : ResponseEntity.notFound().<Long>build()));
+    }
+
+    @PutMapping(value = "/accept/{id}")
+    public Mono<ResponseEntity<Application>> acceptById(@PathVariable long id,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Accepting application with id: {}", id);
+        return ifMatched(id, ifMatch, () -> transitioned(service.acceptById(id, ETags.ifMatchVersion(ifMatch))));
+    }
+
+    @PutMapping(value = "/publish/{id}")
+    public Mono<ResponseEntity<Application>> publishById(@PathVariable long id,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Publishing application with id: {}", id);
+        return ifMatched(id, ifMatch, () -> transitioned(service.publishById(id, ETags.ifMatchVersion(ifMatch))));
+    }
+
+    @PutMapping(value = "/bulk/{transition}",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Map<Long, TransitionOutcome>>> transitionAll(@PathVariable String transition,
+                                                                            @RequestBody BulkTransitionRequest request) {
+        log.info("Trying to {} {} applications", transition, request.getIds() != null ? request.getIds().size() : 0);
+        return service.transitionAll(Transition.fromPath(transition), request.getIds(), request.getRejectionReason())
+                .map(ResponseEntity::ok);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        log.warn("Rejected request: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Application> concurrentModification(OptimisticLockingFailureException e) {
+        log.warn("Rejected concurrent modification: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    private Mono<ResponseEntity<List<Application>>> listing(String ifNoneMatch, Supplier<Mono<ApplicationPage>> page) {
+        String etag = collectionVersion.etag();
+        if (ETags.matchesWeak(ifNoneMatch, etag)) {
+            return Mono.just(notModified(etag));
+        }
+        return page.get().map(applications -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+            if (applications.getNextCursor() != null) {
+                response.header(ApplicationController.NEXT_CURSOR_HEADER, applications.getNextCursor());
+            }
+            return response.body(applications.getContent());
+        });
+    }
+
+    // If-Match: * only asks for an existing application. Versions are compared by the write statements themselves,
+    // a version they do not find ends in OptimisticLockingFailureException.
+    private <T> Mono<ResponseEntity<T>> ifMatched(long id, String ifMatch, Supplier<Mono<ResponseEntity<T>>> handler) {
+        if (ifMatch == null || !ifMatch.trim().equals("*")) {
+            return Mono.defer(handler);
+        }
+        return service.findVersionById(id)
+                .flatMap(version -> handler.get())
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Precondition {} failed for application with id: {}", ifMatch, id);
+                    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+                }));
+    }
+
+    private Mono<ResponseEntity<Application>> transitioned(Mono<Boolean> transition) {
+        return transition.map(applied -> applied
+                ? ResponseEntity.ok().<Application>build()
+                : ResponseEntity.unprocessableEntity().<Application>build());
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+}
@@ -0,0 +1,201 @@
+package com.maciek.home.applicationservice.reactive;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Statements of the reactive variant on {@link DatabaseClient}. Mirrors the JPA repository: keyset pages on the
+ * composite indexes, conditional updates for the transitions and a delete that only matches the expected state.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveApplicationRepository {
+
+    private static final String SELECT = "select id, name, content, state, rejection_reason, version from application ";
+    private static final State[] STATES = State.values();
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveApplicationRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Application> findById(long id) {
+        return databaseClient.sql(SELECT + "where id = :id")
+                .bind("id", id)
+                .map(ReactiveApplicationRepository::toApplication)
+                .one();
+    }
+
+    public Mono<Long> findVersionById(long id) {
+        return databaseClient.sql("select version from application where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    public Mono<State> findStateById(long id) {
+        return databaseClient.sql("select state from application where id = :id")
+                .bind("id", id)
+                .map(row -> STATES[row.get("state", Integer.class)])
+                .one();
+    }
+
+    // Rows are emitted as the subscriber requests them, nothing collects the table
+    public Flux<Application> findAll() {
+        return databaseClient.sql(SELECT + "order by id")
+                .map(ReactiveApplicationRepository::toApplication)
+                .all();
+    }
+
+    public Flux<Application> findAllOrderByName(boolean ascending, long offset, int limit) {
+        String order = ascending ? "order by name asc, id asc " : "order by name desc, id desc ";
+        return page(SELECT + order + "limit :limit offset :offset", offset, limit);
+    }
+
+    public Flux<Application> findAllOrderByState(boolean ascending, long offset, int limit) {
+        String order = ascending ? "order by state asc, id asc " : "order by state desc, id desc ";
+        return page(SELECT + order + "limit :limit offset :offset", offset, limit);
+    }
+
+    // The leading >= / <= on the sort column lets the composite index do a range scan
+    public Flux<Application> findNameAfter(boolean ascending, String name, long id, int limit) {
+        String sql = ascending
+                ? SELECT + "where name >= :key and (name > :key or id > :id) order by name asc, id asc limit :limit"
+                : SELECT + "where name <= :key and (name < :key or id < :id) order by name desc, id desc limit :limit";
+        return seek(sql, name, id, limit);
+    }
+
+    public Flux<Application> findStateAfter(boolean ascending, State state, long id, int limit) {
+        String sql = ascending
+                ? SELECT + "where state >= :key and (state > :key or id > :id) order by state asc, id asc limit :limit"
+                : SELECT + "where state <= :key and (state < :key or id < :id) order by state desc, id desc limit :limit";
+        return seek(sql, state.ordinal(), id, limit);
+    }
+
+    public Mono<Map<State, Long>> countByState() {
+        return databaseClient.sql("select state, count(*) as total from application group by state")
+                .map(row -> Map.entry(STATES[row.get("state", Integer.class)], row.get("total", Long.class)))
+                .all()
+                .collect(ReactiveApplicationRepository::zeroCounts, (counts, entry) -> counts.put(entry.getKey(), entry.getValue()));
+    }
+
+    public Mono<Application> insert(Application application) {
+        DatabaseClient.GenericExecuteSpec statement = databaseClient
+                .sql("insert into application (name, content, state, rejection_reason, version) "
+                        + "values (:name, :content, :state, :reason, 0)")
+                .bind("name", application.getName())
+                .bind("content", application.getContent())
+                .bind("state", application.getState().ordinal());
+        statement = application.getRejectionReason() != null
+                ? statement.bind("reason", application.getRejectionReason())
+                : statement.bindNull("reason", String.class);
+        return statement.filter(insert -> insert.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    application.setId(id);
+                    application.setVersion(0L);
+                    return application;
+                });
+    }
+
+    // Zero rows when the version moved on since the application was read
+    public Mono<Integer> update(Application application) {
+        return databaseClient.sql("update application set name = :name, content = :content, version = version + 1 "
+                        + "where id = :id and version = :version")
+                .bind("name", application.getName())
+                .bind("content", application.getContent())
+                .bind("id", application.getId())
+                .bind("version", application.getVersion())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Map<Long, State>> lockStates(Collection<Long> ids) {
+        return databaseClient.sql("select id, state from application where id in (:ids) for update")
+                .bind("ids", ids)
+                .map(row -> Map.entry(row.get("id", Long.class), STATES[row.get("state", Integer.class)]))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    // A non-null expected version is part of the condition
+    public Mono<Integer> updateStates(Collection<Long> ids, Transition transition, String rejectionReason, Set<State> allowedFrom,
+                                      Long expectedVersion) {
+        String sql = transition == Transition.REJECT
+                ? "update application set state = :target, rejection_reason = :reason, version = version + 1 where id in (:ids) and state in (:allowedFrom)"
+                : "update application set state = :target, version = version + 1 where id in (:ids) and state in (:allowedFrom)";
+        if (expectedVersion != null) {
+            sql += " and version = :version";
+        }
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql)
+                .bind("target", transition.getTarget().ordinal())
+                .bind("ids", ids)
+                .bind("allowedFrom", allowedFrom.stream().map(State::ordinal).collect(Collectors.toList()));
+        if (transition == Transition.REJECT) {
+            statement = statement.bind("reason", rejectionReason);
+        }
+        if (expectedVersion != null) {
+            statement = statement.bind("version", expectedVersion);
+        }
+        return statement.fetch().rowsUpdated();
+    }
+
+    public Mono<Boolean> deleteInState(long id, State state, Long expectedVersion) {
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(expectedVersion != null
+                        ? "delete from application where id = :id and state = :state and version = :version"
+                        : "delete from application where id = :id and state = :state")
+                .bind("id", id)
+                .bind("state", state.ordinal());
+        if (expectedVersion != null) {
+            statement = statement.bind("version", expectedVersion);
+        }
+        return statement.fetch()
+                .rowsUpdated()
+                .map(deleted -> deleted > 0);
+    }
+
+    private Flux<Application> page(String sql, long offset, int limit) {
+        return databaseClient.sql(sql)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveApplicationRepository::toApplication)
+                .all();
+    }
+
+    private Flux<Application> seek(String sql, Object key, long id, int limit) {
+        return databaseClient.sql(sql)
+                .bind("key", key)
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveApplicationRepository::toApplication)
+                .all();
+    }
+
+    private static Map<State, Long> zeroCounts() {
+        Map<State, Long> counts = new EnumMap<>(State.class);
+        for (State state : STATES) {
+            counts.put(state, 0L);
+        }
+        return counts;
+    }
+
+    private static Application toApplication(Row row) {
+        return new Application(row.get("id", Long.class), row.get("name", String.class), row.get("content", String.class),
+                STATES[row.get("state", Integer.class)], row.get("rejection_reason", String.class), row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,52 @@
+package com.maciek.home.applicationservice.reactive;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link com.maciek.home.applicationservice.sevice.ApplicationService}, the same lifecycle
+ * rules with the results emitted once the transaction committed.
+ */
+public interface ReactiveApplicationService {
+
+    Mono<Application> findById(long id);
+
+    Mono<Long> findVersionById(long id);
+
+    Flux<Application> findAll();
+
+    Mono<Map<State, Long>> countByState();
+
+    Mono<ApplicationPage> findAllOrderByName(String sort, int page, Integer limit);
+
+    Mono<ApplicationPage> seekAllOrderByName(String sort, String after, Integer limit);
+
+    Mono<ApplicationPage> findAllOrderByState(String sort, int page, Integer limit);
+
+    Mono<ApplicationPage> seekAllOrderByState(String sort, String after, Integer limit);
+
+    // Empty when the application has no name or content
+    Mono<Application> createNew(Application newApplication);
+
+    Mono<Boolean> deleteById(long id, Long expectedVersion);
+
+    Mono<Boolean> updateById(long id, Application newApplication);
+
+    Mono<Boolean> rejectById(long id, Application newApplication, Long expectedVersion);
+
+    Mono<Boolean> verifyById(long id, Long expectedVersion);
+
+    Mono<Boolean> acceptById(long id, Long expectedVersion);
+
+    Mono<Boolean> publishById(long id, Long expectedVersion);
+
+    Mono<Map<Long, TransitionOutcome>> transitionAll(Transition transition, List<Long> ids, String rejectionReason);
+}
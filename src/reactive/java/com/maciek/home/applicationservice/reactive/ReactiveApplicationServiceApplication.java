@@ -0,0 +1,54 @@
+package com.maciek.home.applicationservice.reactive;
+
+import com.maciek.home.applicationservice.config.BulkProperties;
+import com.maciek.home.applicationservice.config.PagingProperties;
+import com.maciek.home.applicationservice.sevice.TransitionCounters;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Non-blocking variant of the service: the /applications API on WebFlux and Netty, backed by R2DBC on its own H2
+ * database. Built by the reactive Maven profile, which leaves Tomcat out. Only this package is scanned and JDBC and
+ * JPA stay off; the condition keeps it out of the component scan of the servlet application.
+ */
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class, JpaRepositoriesAutoConfiguration.class})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties({PagingProperties.class, BulkProperties.class})
+@Import(TransitionCounters.class)
+public class ReactiveApplicationServiceApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveApplicationServiceApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+
+    @Bean
+    public ConnectionFactoryInitializer schemaInitializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("reactive/schema.sql")));
+        return initializer;
+    }
+
+    @Bean
+    public TransactionalOperator transactionalOperator(ReactiveTransactionManager transactionManager) {
+        return TransactionalOperator.create(transactionManager);
+    }
+}
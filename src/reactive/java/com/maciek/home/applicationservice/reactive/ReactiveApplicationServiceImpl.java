@@ -0,0 +1,313 @@
+package com.maciek.home.applicationservice.reactive;
+
+import com.maciek.home.applicationservice.config.BulkProperties;
+import com.maciek.home.applicationservice.config.PagingProperties;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.events.ChangeType;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import com.maciek.home.applicationservice.sevice.ApplicationServiceImpl;
+import com.maciek.home.applicationservice.sevice.PageCursor;
+import com.maciek.home.applicationservice.sevice.TransitionCounters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveApplicationServiceImpl implements ReactiveApplicationService {
+
+    private static final String NAME_CURSOR = "name";
+    private static final String STATE_CURSOR = "state";
+
+    private final ReactiveApplicationRepository repository;
+    private final PagingProperties pagingProperties;
+    private final BulkProperties bulkProperties;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransitionCounters transitionCounters;
+
+    public ReactiveApplicationServiceImpl(ReactiveApplicationRepository repository, PagingProperties pagingProperties,
+                                          BulkProperties bulkProperties, TransactionalOperator transactionalOperator,
+                                          ApplicationEventPublisher eventPublisher, TransitionCounters transitionCounters) {
+        this.repository = repository;
+        this.pagingProperties = pagingProperties;
+        this.bulkProperties = bulkProperties;
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
+        this.transitionCounters = transitionCounters;
+    }
+
+    @Override
+    public Mono<Application> findById(long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Mono<Long> findVersionById(long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    public Flux<Application> findAll() {
+        return repository.findAll();
+    }
+
+    @Override
+    public Mono<Map<State, Long>> countByState() {
+        return repository.countByState();
+    }
+
+    @Override
+    public Mono<ApplicationPage> findAllOrderByName(String sort, int page, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        return toPage(repository.findAllOrderByName(isAscending(sort), (long) page * size, size), size, NAME_CURSOR);
+    }
+
+    @Override
+    public Mono<ApplicationPage> seekAllOrderByName(String sort, String after, Integer limit) {
+        return Mono.defer(() -> {
+            int size = pagingProperties.resolve(limit);
+            PageCursor cursor = PageCursor.decode(after, NAME_CURSOR);
+            return toPage(repository.findNameAfter(isAscending(sort), cursor.getKey(), cursor.getId(), size), size, NAME_CURSOR);
+        });
+    }
+
+    @Override
+    public Mono<ApplicationPage> findAllOrderByState(String sort, int page, Integer limit) {
+        int size = pagingProperties.resolve(limit);
+        return toPage(repository.findAllOrderByState(isAscending(sort), (long) page * size, size), size, STATE_CURSOR);
+    }
+
+    @Override
+    public Mono<ApplicationPage> seekAllOrderByState(String sort, String after, Integer limit) {
+        return Mono.defer(() -> {
+            int size = pagingProperties.resolve(limit);
+            PageCursor cursor = PageCursor.decode(after, STATE_CURSOR);
+            State state = parseState(cursor.getKey());
+            return toPage(repository.findStateAfter(isAscending(sort), state, cursor.getId(), size), size, STATE_CURSOR);
+        });
+    }
+
+    @Override
+    public Mono<Application> createNew(Application newApplication) {
+        if (!ApplicationServiceImpl.hasNameAndContent(newApplication)) {
+            log.info("Trying to post element with empty Name and Content");
+            return Mono.empty();
+        }
+        return repository.insert(newApplication)
+                .doOnNext(application -> {
+                    log.info("New application submitted: {}", application);
+                    publishChange(application.getId(), ChangeType.CREATED, null, application.getState());
+                });
+    }
+
+    @Override
+    public Mono<Boolean> deleteById(long id, Long expectedVersion) {
+        return repository.deleteInState(id, CREATED, expectedVersion)
+                .flatMap(deleted -> {
+                    if (deleted) {
+                        publishChange(id, ChangeType.DELETED, CREATED, null);
+                        return Mono.just(true);
+                    }
+                    return requireVersion(id, expectedVersion).then(repository.findStateById(id)
+                            .doOnNext(appState -> log.warn("Cannot remove application with id: {}, because it's in state: {}", id, appState))
+                            .thenReturn(false));
+                });
+    }
+
+    @Override
+    public Mono<Boolean> updateById(long id, Application newApplication) {
+        Mono<State> update = repository.findById(id)
+                .flatMap(application -> {
+                    // Version of the request body is the one the client has seen (If-Match), null when it does not care
+                    if (newApplication.getVersion() != null && !newApplication.getVersion().equals(application.getVersion())) {
+                        return Mono.error(new OptimisticLockingFailureException("Application " + id + " was changed concurrently"));
+                    }
+                    State appState = application.getState();
+                    if (!appState.equals(CREATED) && !appState.equals(VERIFIED)) {
+                        log.warn("Cannot update application with id: {}, because it's in state: {}", id, appState);
+                        return Mono.empty();
+                    }
+                    if (newApplication.getContent() != null && !newApplication.getContent().isEmpty()) {
+                        application.setContent(newApplication.getContent());
+                    }
+                    if (newApplication.getName() != null && !newApplication.getName().isEmpty()) {
+                        application.setName(newApplication.getName());
+                    }
+                    return repository.update(application)
+                            .flatMap(updated -> updated > 0
+                                    ? Mono.just(appState)
+                                    : Mono.error(new OptimisticLockingFailureException("Application " + id + " was changed concurrently")));
+                });
+        return transactionalOperator.transactional(update)
+                .doOnNext(appState -> publishChange(id, ChangeType.UPDATED, appState, appState))
+                .map(appState -> true)
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Boolean> rejectById(long id, Application newApplication, Long expectedVersion) {
+        if (newApplication == null || newApplication.getRejectionReason() == null || newApplication.getRejectionReason().isBlank()) {
+            log.warn("Cannot reject application with id: {}, because Request body is empty", id);
+            return Mono.just(false);
+        }
+        return transition(id, Transition.REJECT, newApplication.getRejectionReason(), expectedVersion);
+    }
+
+    @Override
+    public Mono<Boolean> verifyById(long id, Long expectedVersion) {
+        return transition(id, Transition.VERIFY, null, expectedVersion);
+    }
+
+    @Override
+    public Mono<Boolean> acceptById(long id, Long expectedVersion) {
+        return transition(id, Transition.ACCEPT, null, expectedVersion);
+    }
+
+    @Override
+    public Mono<Boolean> publishById(long id, Long expectedVersion) {
+        return transition(id, Transition.PUBLISH, null, expectedVersion);
+    }
+
+    @Override
+    public Mono<Map<Long, TransitionOutcome>> transitionAll(Transition transition, List<Long> ids, String rejectionReason) {
+        if (ids == null || ids.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        if (ids.size() > bulkProperties.getMaxIds()) {
+            return Mono.error(new IllegalArgumentException("Cannot transition more than " + bulkProperties.getMaxIds() + " applications at once"));
+        }
+        if (transition == Transition.REJECT && (rejectionReason == null || rejectionReason.isBlank())) {
+            return Mono.error(new IllegalArgumentException("Cannot reject applications without rejection reason"));
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += bulkProperties.getChunkSize()) {
+            chunks.add(distinctIds.subList(from, Math.min(from + bulkProperties.getChunkSize(), distinctIds.size())));
+        }
+        // Chunks one after another in one transaction, the locked states are the ones the update sees
+        Mono<Map<Long, State>> previousStates = Flux.fromIterable(chunks)
+                .concatMap(chunk -> repository.lockStates(chunk)
+                        .flatMap(states -> {
+                            List<Long> applicable = new ArrayList<>();
+                            states.forEach((id, state) -> {
+                                if (transition.isAllowedFrom(state)) {
+                                    applicable.add(id);
+                                }
+                            });
+                            return applicable.isEmpty()
+                                    ? Mono.just(states)
+                                    : repository.updateStates(applicable, transition, rejectionReason, transition.getAllowedFrom(), null).thenReturn(states);
+                        }))
+                .collect(HashMap::new, Map::putAll);
+        return transactionalOperator.transactional(previousStates)
+                .map(states -> {
+                    Map<Long, TransitionOutcome> outcomes = new LinkedHashMap<>();
+                    for (Long id : distinctIds) {
+                        State previousState = states.get(id);
+                        if (previousState == null) {
+                            outcomes.put(id, TransitionOutcome.NOT_FOUND);
+                        } else if (transition.isAllowedFrom(previousState)) {
+                            outcomes.put(id, TransitionOutcome.APPLIED);
+                            publishChange(id, ChangeType.TRANSITIONED, previousState, transition.getTarget());
+                        } else {
+                            outcomes.put(id, TransitionOutcome.WRONG_STATE);
+                        }
+                    }
+                    transitionCounters.countAll(transition, outcomes.values());
+                    log.info("{} applied to {} of {} applications", transition,
+                            outcomes.values().stream().filter(TransitionOutcome.APPLIED::equals).count(), outcomes.size());
+                    return outcomes;
+                });
+    }
+
+    // One conditional statement per source state, so the state the row left is known without reading it
+    private Mono<Boolean> transition(long id, Transition transition, String rejectionReason, Long expectedVersion) {
+        Mono<State> previousState = Flux.fromIterable(transition.getAllowedFrom())
+                .concatMap(from -> repository.updateStates(List.of(id), transition, rejectionReason, Set.of(from), expectedVersion)
+                        .filter(updated -> updated > 0)
+                        .map(updated -> from))
+                .next();
+        return transactionalOperator.transactional(previousState)
+                .map(from -> {
+                    publishChange(id, ChangeType.TRANSITIONED, from, transition.getTarget());
+                    transitionCounters.count(transition, TransitionOutcome.APPLIED);
+                    return true;
+                })
+                .switchIfEmpty(Mono.defer(() -> requireVersion(id, expectedVersion).then(repository.findStateById(id)
+                        .doOnNext(appState -> {
+                            log.warn("Cannot {} application with id: {}, because it's in state: {}", transition, id, appState);
+                            transitionCounters.count(transition, TransitionOutcome.WRONG_STATE);
+                        })
+                        .switchIfEmpty(Mono.fromRunnable(() -> transitionCounters.count(transition, TransitionOutcome.NOT_FOUND)))
+                        .thenReturn(false))));
+    }
+
+    // A write that matched no row tells apart a version it did not find from a row in the wrong state. Only runs
+    // after the write, the decision itself was taken by the conditional statement.
+    private Mono<Void> requireVersion(long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return repository.findVersionById(id)
+                .filter(expectedVersion::equals)
+                .switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException("Application " + id + " was changed concurrently")))
+                .then();
+    }
+
+    private boolean isAscending(String sort) {
+        return Sort.Direction.fromOptionalString(sort)
+                .orElseThrow(() -> {
+                    log.warn("Cannot obtain sorting param: {}", sort);
+                    return new IllegalArgumentException("Unknown sorting param: " + sort);
+                })
+                .isAscending();
+    }
+
+    private State parseState(String state) {
+        try {
+            return State.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor contains unknown state: " + state, e);
+        }
+    }
+
+    // A full page means there may be more rows, so hand out the position of its last row
+    private Mono<ApplicationPage> toPage(Flux<Application> applications, int size, String field) {
+        return applications.collectList().map(content -> {
+            if (content.isEmpty() || content.size() < size) {
+                return new ApplicationPage(content, null);
+            }
+            Application last = content.get(content.size() - 1);
+            String key = STATE_CURSOR.equals(field) ? last.getState().name() : last.getName();
+            return new ApplicationPage(content, new PageCursor(field, last.getId(), key).encode());
+        });
+    }
+
+    private void publishChange(long id, ChangeType type, State previousState, State state) {
+        eventPublisher.publishEvent(new ApplicationChangedEvent(id, type, previousState, state));
+    }
+}
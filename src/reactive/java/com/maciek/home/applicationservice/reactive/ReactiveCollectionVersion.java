@@ -0,0 +1,39 @@
+package com.maciek.home.applicationservice.reactive;
+
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counter of the applications table, exposed as the weak ETag of the list endpoints. The reactive variant
+ * runs on an in-memory H2 database that lives and dies with the process, so nobody else writes to it and a counter
+ * in memory sees every change; the epoch tells apart counters of different runs. Pointing the variant at any
+ * other database fails the startup, a shared one would need the counter row of the servlet service.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCollectionVersion {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong changes = new AtomicLong();
+
+    public ReactiveCollectionVersion(@Value("${spring.r2dbc.url:}") String url) {
+        if (!url.isEmpty() && !url.startsWith("r2dbc:h2:mem:")) {
+            throw new IllegalStateException("The reactive variant needs its own in-memory database, not " + url);
+        }
+    }
+
+    // Changes are published after their transaction completed
+    @EventListener
+    public void onChange(ApplicationChangedEvent event) {
+        changes.incrementAndGet();
+    }
+
+    public String etag() {
+        return "W/\"" + epoch + "-" + changes.get() + "\"";
+    }
+}
@@ -0,0 +1,15 @@
+-- Same columns as the JPA mapping of Application, the state is stored as its ordinal.
+-- Ids come from a sequence like on the JPA side, an identity column makes H2 slow on rows inserted with explicit ids.
+create sequence if not exists application_seq;
+create table if not exists application (
+    id bigint default next value for application_seq primary key,
+    name varchar(255),
+    content varchar(255),
+    state integer not null,
+    rejection_reason varchar(255),
+    version bigint
+);
+create index if not exists idx_application_name_id on application (name, id);
+create index if not exists idx_application_name_id_desc on application (name desc, id desc);
+create index if not exists idx_application_state_id on application (state, id);
+create index if not exists idx_application_state_id_desc on application (state desc, id desc);
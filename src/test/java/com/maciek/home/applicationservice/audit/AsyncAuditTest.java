@@ -0,0 +1,107 @@
+package com.maciek.home.applicationservice.audit;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.envers.AuditReaderFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"applications.audit.mode=async", "applications.audit.max-lag=200ms"})
+@ExtendWith(SpringExtension.class)
+class AsyncAuditTest {
+
+    @Autowired
+    private ApplicationService service;
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private AuditWriter writer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testChangesAreWrittenAfterCommit() throws Exception {
+        Application application = new Application(null, "AuditedA", "Audited content", CREATED, null);
+        service.createNew(application);
+        long id = application.getId();
+        service.verifyById(id, null);
+        Application update = new Application(null, "AuditedB", "Updated content", null, null);
+        service.updateById(id, update);
+
+        List<Integer> types = awaitAuditTypes(id, 3);
+        assertEquals(List.of(0, 1, 1), types);
+        List<Number> revisions = transactionTemplate.execute(status ->
+                AuditReaderFactory.get(entityManager).getRevisions(Application.class, id));
+        assertEquals(3, revisions.size());
+        Application verified = transactionTemplate.execute(status ->
+                AuditReaderFactory.get(entityManager).find(Application.class, id, revisions.get(1)));
+        assertEquals(VERIFIED, verified.getState());
+        assertEquals("AuditedA", verified.getName());
+        assertEquals(0.0, meterRegistry.get("applications.audit.queue.depth").gauge().value());
+        assertTrue(meterRegistry.get("applications.audit.flush").timer().count() > 0);
+    }
+
+    @Test
+    void testDeleteIsAudited() throws Exception {
+        Application application = new Application(null, "AuditedC", "Audited content", CREATED, null);
+        service.createNew(application);
+        service.deleteById(application.getId(), null);
+
+        assertEquals(List.of(0, 2), awaitAuditTypes(application.getId(), 2));
+    }
+
+    @Test
+    void testRolledBackChangesAreNotAudited() throws Exception {
+        Long id = transactionTemplate.execute(status -> {
+            Application application = repository.save(new Application(null, "AuditedD", "Audited content", CREATED, null));
+            repository.flush();
+            status.setRollbackOnly();
+            return application.getId();
+        });
+        // Gives the writer more than the allowed lag
+        Thread.sleep(500);
+        assertEquals(List.of(), auditTypes(id));
+        assertEquals(0, writer.getQueuedRows());
+    }
+
+    private List<Integer> awaitAuditTypes(long id, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<Integer> types = auditTypes(id);
+        while (types.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            types = auditTypes(id);
+        }
+        return types;
+    }
+
+    private List<Integer> auditTypes(long id) {
+        return jdbcTemplate.queryForList("select revtype from application_aud where id = ? order by rev", Integer.class, id);
+    }
+}
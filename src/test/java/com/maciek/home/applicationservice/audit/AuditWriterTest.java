@@ -0,0 +1,86 @@
+package com.maciek.home.applicationservice.audit;
+
+import com.maciek.home.applicationservice.config.AuditProperties;
+import com.maciek.home.applicationservice.model.CompressedContentConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AuditProperties properties = new AuditProperties();
+    private AuditWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        properties.setMode(AuditProperties.Mode.ASYNC);
+        // Longer than the test, only stopping the writer gets the rows written
+        properties.setMaxLag(Duration.ofMinutes(1));
+        writer = new AuditWriter(jdbcTemplate, transactionManager, properties, mock(CompressedContentConverter.class),
+                meterRegistry);
+    }
+
+    @Test
+    void testStopWritesQueuedChangesets() throws Exception {
+        doAnswer(invocation -> {
+            ((GeneratedKeyHolder) invocation.getArgument(1)).getKeyList().add(Map.of("rev", 1));
+            return 1;
+        }).when(jdbcTemplate).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        writer.start();
+        writer.submit(changeset(1L, 2L));
+        writer.submit(changeset(3L));
+
+        writer.stop();
+
+        verify(jdbcTemplate, times(2)).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        assertEquals(0, writer.getQueuedRows());
+        assertEquals(0.0, meterRegistry.get("applications.audit.failed").counter().count());
+    }
+
+    @Test
+    void testDroppedRowsAreCounted() {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+                .thenThrow(new DataAccessResourceFailureException("Database down"));
+
+        // Not started, the submitting thread writes
+        writer.submit(changeset(1L, 2L));
+
+        verify(jdbcTemplate, times(3)).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        verify(jdbcTemplate, times(0)).batchUpdate(anyString(), anyList(), any(int[].class));
+        assertEquals(2.0, meterRegistry.get("applications.audit.failed").counter().count());
+    }
+
+    private static Changeset changeset(Long... ids) {
+        List<AuditRecord> records = new java.util.ArrayList<>();
+        for (Long id : ids) {
+            records.add(AuditRecord.deleted(id));
+        }
+        return new Changeset(System.currentTimeMillis(), System.nanoTime(), records);
+    }
+}
@@ -0,0 +1,145 @@
+package com.maciek.home.applicationservice.bootstrap;
+
+import com.maciek.home.applicationservice.config.SeedProperties;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApplicationGeneratorTest {
+
+    private static final int SAMPLES = 20000;
+
+    @Test
+    void testStatesFollowWeights() {
+        SeedProperties properties = new SeedProperties();
+        properties.setStates(new EnumMap<>(Map.of(State.CREATED, 3.0, State.PUBLISHED, 1.0, State.REJECTED, 0.0)));
+        ApplicationGenerator generator = new ApplicationGenerator(properties);
+        Random random = new Random(1);
+
+        Map<State, Integer> counts = new EnumMap<>(State.class);
+        for (int i = 0; i < SAMPLES; i++) {
+            counts.merge(generator.next(random).getState(), 1, Integer::sum);
+        }
+        assertEquals(2, counts.size());
+        assertEquals(0.75, counts.get(State.CREATED) / (double) SAMPLES, 0.02);
+    }
+
+    // Boot merges configured map entries into the default, so listing some states must not bring back the others
+    @Test
+    void testConfiguredStatesReplaceDefaults() {
+        SeedProperties properties = Binder.get(new MockEnvironment()
+                        .withProperty("applications.seed.states.created", "1")
+                        .withProperty("applications.seed.states.rejected", "1"))
+                .bind("applications.seed", SeedProperties.class)
+                .get();
+        ApplicationGenerator generator = new ApplicationGenerator(properties);
+        Random random = new Random(3);
+
+        Map<State, Integer> counts = new EnumMap<>(State.class);
+        for (int i = 0; i < SAMPLES; i++) {
+            counts.merge(generator.next(random).getState(), 1, Integer::sum);
+        }
+        assertEquals(Set.of(State.CREATED, State.REJECTED), counts.keySet());
+    }
+
+    @Test
+    void testDefaultStatesWithoutConfiguration() {
+        ApplicationGenerator generator = new ApplicationGenerator(new SeedProperties());
+        Random random = new Random(4);
+
+        Map<State, Integer> counts = new EnumMap<>(State.class);
+        for (int i = 0; i < SAMPLES; i++) {
+            counts.merge(generator.next(random).getState(), 1, Integer::sum);
+        }
+        assertEquals(SeedProperties.DEFAULT_STATES.keySet(), counts.keySet());
+    }
+
+    @Test
+    void testPathsFollowTransitions() {
+        ApplicationGenerator generator = new ApplicationGenerator(new SeedProperties());
+        Random random = new Random(2);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            ApplicationGenerator.GeneratedApplication application = generator.next(random);
+            List<State> path = application.getPath();
+            assertEquals(State.CREATED, path.get(0));
+            for (int step = 1; step < path.size(); step++) {
+                State from = path.get(step - 1);
+                State to = path.get(step);
+                assertTrue(Arrays.stream(Transition.values()).anyMatch(t -> t.getTarget() == to && t.isAllowedFrom(from)),
+                        from + " -> " + to);
+            }
+            if (application.getState() == State.REJECTED) {
+                assertNotNull(application.getRejectionReason());
+            } else {
+                assertNull(application.getRejectionReason());
+            }
+        }
+    }
+
+    @Test
+    void testLengthsStayInRangeAroundMedian() {
+        SeedProperties properties = new SeedProperties();
+        properties.setContentLength(new SeedProperties.Length(50, 1000, 8000));
+        ApplicationGenerator generator = new ApplicationGenerator(properties);
+        Random random = new Random(3);
+
+        List<Integer> lengths = new ArrayList<>(SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            ApplicationGenerator.GeneratedApplication application = generator.next(random);
+            String name = application.getName();
+            assertTrue(name.length() >= 8 && name.length() <= 120, name);
+            assertTrue(!name.endsWith(" ") && !application.getContent().endsWith(" "));
+            lengths.add(application.getContent().length());
+        }
+        lengths.sort(null);
+        assertTrue(lengths.get(0) >= 50 && lengths.get(SAMPLES - 1) <= 8000);
+        assertEquals(1000, lengths.get(SAMPLES / 2), 50);
+    }
+
+    @Test
+    void testSameSeedGeneratesSameApplications() {
+        ApplicationGenerator generator = new ApplicationGenerator(new SeedProperties());
+        Random first = new Random(4);
+        Random second = new Random(4);
+
+        for (int i = 0; i < 100; i++) {
+            ApplicationGenerator.GeneratedApplication expected = generator.next(first);
+            ApplicationGenerator.GeneratedApplication actual = generator.next(second);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getContent(), actual.getContent());
+            assertEquals(expected.getPath(), actual.getPath());
+        }
+    }
+
+    @Test
+    void testInvalidDistributionsAreRejected() {
+        SeedProperties noStates = new SeedProperties();
+        noStates.setStates(new EnumMap<>(Map.of(State.CREATED, 0.0)));
+        assertThrows(IllegalArgumentException.class, () -> new ApplicationGenerator(noStates));
+
+        SeedProperties unordered = new SeedProperties();
+        unordered.setNameLength(new SeedProperties.Length(30, 20, 40));
+        assertThrows(IllegalArgumentException.class, () -> new ApplicationGenerator(unordered));
+
+        SeedProperties tooLong = new SeedProperties();
+        tooLong.setNameLength(new SeedProperties.Length(8, 24, 300));
+        assertThrows(IllegalArgumentException.class, () -> new ApplicationGenerator(tooLong));
+    }
+}
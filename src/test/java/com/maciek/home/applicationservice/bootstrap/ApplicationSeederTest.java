@@ -0,0 +1,104 @@
+package com.maciek.home.applicationservice.bootstrap;
+
+import com.maciek.home.applicationservice.config.SeedProperties;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import org.hibernate.envers.RevisionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class ApplicationSeederTest {
+
+    private static final int ROWS = 3000;
+
+    @Autowired
+    private ApplicationSeeder seeder;
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testSeedsApplicationsWithHistory() {
+        long firstId = nextBlock();
+        SeedProperties properties = new SeedProperties();
+        properties.setRows(ROWS);
+        properties.setStates(new EnumMap<>(Map.of(State.CREATED, 1.0, State.PUBLISHED, 1.0)));
+        properties.setHistory(true);
+        properties.setThreads(4);
+        properties.setBatchSize(250);
+
+        SeedReport report = seeder.seed(properties);
+        long lastId = nextBlock();
+
+        assertEquals(ROWS, report.getRows());
+        assertTrue(report.getRowsPerSecond() > 0);
+        Map<State, Long> counts = new EnumMap<>(State.class);
+        jdbcTemplate.query("select state, count(*) from application where id > ? and id < ? group by state",
+                rs -> {
+                    counts.put(State.values()[rs.getInt(1)], rs.getLong(2));
+                }, firstId, lastId);
+        assertEquals(ROWS, counts.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(ROWS / 2.0, counts.get(State.PUBLISHED), ROWS * 0.05);
+        // A created application has its ADD row, a published one three transitions more
+        assertEquals(ROWS + 3 * counts.get(State.PUBLISHED), report.getHistoryRows());
+        // Batches of a created and a published application each take four revisions
+        assertEquals(4L * ROWS / 250, report.getRevisions());
+
+        long published = jdbcTemplate.queryForObject(
+                "select min(id) from application where id > ? and id < ? and state = ?", Long.class,
+                firstId, lastId, State.PUBLISHED.ordinal());
+        Application application = transactionTemplate.execute(status -> repository.findWithContentById(published).orElseThrow());
+        assertEquals(3, application.getVersion());
+        assertTrue(application.getContent().length() >= 20);
+        List<ApplicationRevision> revisions = transactionTemplate.execute(status -> repository.findRevisions(published, null, 10));
+        assertEquals(4, revisions.size());
+        assertEquals(State.PUBLISHED, revisions.get(0).getState());
+        assertEquals(RevisionType.ADD, revisions.get(3).getType());
+        assertEquals(application.getContent(), revisions.get(3).getContent());
+    }
+
+    // Other tests insert rows with ids of their own, the seeded ones lie between two blocks reserved around the seed
+    private long nextBlock() {
+        return jdbcTemplate.queryForObject("select next value for application_seq", Long.class);
+    }
+
+    // Ids come from the blocks the id generator also reserves, so saving more than a block after a seed never collides
+    @Test
+    void testServiceIdsContinueAfterSeed() {
+        SeedProperties properties = new SeedProperties();
+        properties.setRows(500);
+        seeder.seed(properties);
+        long count = repository.count();
+
+        List<Application> applications = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            applications.add(new Application(null, "After seed", "Created after seeding", CREATED, null));
+        }
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(applications));
+        assertEquals(count + 120, repository.count());
+    }
+}
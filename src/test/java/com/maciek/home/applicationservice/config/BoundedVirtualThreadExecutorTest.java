@@ -0,0 +1,59 @@
+package com.maciek.home.applicationservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedVirtualThreadExecutorTest {
+
+    @Test
+    void testRejectsBeyondLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        try (BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor(Executors.newCachedThreadPool(), 1)) {
+            executor.execute(() -> {
+                awaitQuietly(release);
+                done.countDown();
+            });
+            assertEquals(1, executor.getActive());
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            // The permit is returned after the task, give it a moment to pass the finally block
+            for (int i = 0; i < 100 && executor.getActive() > 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, executor.getActive());
+        }
+    }
+
+    @Test
+    void testVirtualThreadsOnlyFromJdk21() {
+        ExecutorService virtual = BoundedVirtualThreadExecutor.newVirtualThreadPerTaskExecutor();
+        if (Runtime.version().feature() < 21) {
+            assertNull(virtual);
+        } else {
+            assertNotNull(virtual);
+            virtual.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
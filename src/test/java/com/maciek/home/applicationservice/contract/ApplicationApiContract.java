@@ -0,0 +1,242 @@
+package com.maciek.home.applicationservice.contract;
+
+import com.maciek.home.applicationservice.controllers.ApplicationController;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.BulkTransitionRequest;
+import com.maciek.home.applicationservice.model.State;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The /applications contract, run over HTTP against both the blocking and the reactive variant by the subclasses.
+ * Every test creates the applications it works with, the variants start with different data.
+ */
+abstract class ApplicationApiContract {
+
+    @Autowired
+    protected WebTestClient client;
+
+    @Test
+    void testCreateAndGetWithETag() {
+        Application created = create("Contract application", "Contract content");
+        assertNotNull(created.getId());
+        assertEquals(State.CREATED, created.getState());
+
+        EntityExchangeResult<Application> result = client.get().uri("/applications/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody(Application.class)
+                .returnResult();
+        assertEquals("Contract application", result.getResponseBody().getName());
+
+        client.get().uri("/applications/{id}", created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, result.getResponseHeaders().getETag())
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void testCreateWithoutContent() {
+        client.post().uri("/applications/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Only a name\"}")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void testGetMissing() {
+        client.get().uri("/applications/{id}", -1).exchange().expectStatus().isNoContent();
+    }
+
+    @Test
+    void testLifecycle() {
+        long id = create("Lifecycle", "Walks through all states").getId();
+
+        transition("accept", id).expectStatus().isEqualTo(422);
+        transition("verify", id).expectStatus().isOk();
+        transition("verify", id).expectStatus().isEqualTo(422);
+        transition("accept", id).expectStatus().isOk();
+        transition("publish", id).expectStatus().isOk();
+        client.delete().uri("/applications/remove/{id}", id).exchange().expectStatus().isNotFound();
+
+        client.get().uri("/applications/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.state").isEqualTo("PUBLISHED");
+    }
+
+    @Test
+    void testTransitionOfMissingApplication() {
+        transition("verify", -1).expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    void testRejectNeedsReason() {
+        long id = create("Rejected", "Will be rejected").getId();
+        transition("verify", id).expectStatus().isOk();
+
+        client.put().uri("/applications/reject/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isNotFound();
+        client.put().uri("/applications/reject/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"rejectionReason\":\"Incomplete\"}")
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get().uri("/applications/{id}", id)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.state").isEqualTo("REJECTED")
+                .jsonPath("$.rejectionReason").isEqualTo("Incomplete");
+    }
+
+    @Test
+    void testUpdateWithIfMatch() {
+        long id = create("Before update", "Old content").getId();
+        String etag = client.get().uri("/applications/{id}", id).exchange()
+                .returnResult(Application.class).getResponseHeaders().getETag();
+
+        client.put().uri("/applications/update/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"999\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Stale\",\"content\":\"Stale\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        client.put().uri("/applications/update/{id}", id)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"After update\",\"content\":\"New content\"}")
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get().uri("/applications/{id}", id)
+                .exchange()
+                .expectBody().jsonPath("$.name").isEqualTo("After update");
+    }
+
+    @Test
+    void testDeleteOnlyCreated() {
+        long id = create("Removed", "Will be removed").getId();
+
+        client.delete().uri("/applications/remove/{id}", id).exchange().expectStatus().isOk();
+        client.get().uri("/applications/{id}", id).exchange().expectStatus().isNoContent();
+        client.delete().uri("/applications/remove/{id}", id).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void testBulkTransition() {
+        long first = create("Bulk one", "Bulk content").getId();
+        long second = create("Bulk two", "Bulk content").getId();
+        BulkTransitionRequest request = new BulkTransitionRequest(List.of(first, second, -1L), null);
+
+        client.put().uri("/applications/bulk/verify")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$['" + first + "']").isEqualTo("APPLIED")
+                .jsonPath("$['" + second + "']").isEqualTo("APPLIED")
+                .jsonPath("$['-1']").isEqualTo("NOT_FOUND");
+        client.put().uri("/applications/bulk/verify")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectBody()
+                .jsonPath("$['" + first + "']").isEqualTo("WRONG_STATE");
+        client.put().uri("/applications/bulk/reject")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testSeekPages() {
+        create("Page a", "Paged");
+        create("Page b", "Paged");
+        create("Page c", "Paged");
+
+        EntityExchangeResult<List<Application>> first = client.get().uri("/applications/name/asc?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBodyList(Application.class).hasSize(2)
+                .returnResult();
+        String cursor = first.getResponseHeaders().getFirst(ApplicationController.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        List<Application> second = client.get().uri("/applications/name/asc?limit=2&after={after}", cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Application.class)
+                .returnResult().getResponseBody();
+        String lastOfFirst = first.getResponseBody().get(1).getName();
+        assertTrue(second.stream().allMatch(application -> application.getName().compareTo(lastOfFirst) >= 0));
+
+        client.get().uri("/applications/name/asc?limit=2")
+                .header(HttpHeaders.IF_NONE_MATCH, first.getResponseHeaders().getETag())
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void testUnknownSort() {
+        client.get().uri("/applications/state/sideways").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testStreamAll() {
+        long id = create("Streamed", "Streamed content").getId();
+
+        List<Application> applications = client.get().uri("/applications/all/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Application.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertTrue(applications.stream().anyMatch(application -> application.getId() == id));
+    }
+
+    @Test
+    void testStats() {
+        create("Counted", "Counted content");
+
+        client.get().uri("/applications/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.CREATED").isNumber();
+    }
+
+    protected Application create(String name, String content) {
+        return client.post().uri("/applications/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"" + name + "\",\"content\":\"" + content + "\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Application.class)
+                .returnResult().getResponseBody();
+    }
+
+    private WebTestClient.ResponseSpec transition(String transition, long id) {
+        return client.put().uri("/applications/{transition}/{id}", transition, id).exchange();
+    }
+}
@@ -1,36 +1,77 @@
 package com.maciek.home.applicationservice.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciek.home.applicationservice.config.ExportProperties;
+import com.maciek.home.applicationservice.config.JsonCacheProperties;
+import com.maciek.home.applicationservice.events.ChangeFeed;
+import com.maciek.home.applicationservice.events.FeedEmitter;
 import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.ApplicationSummary;
+import com.maciek.home.applicationservice.model.ApplicationView;
+import com.maciek.home.applicationservice.model.RevisionPage;
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.model.ExportFormat;
+import com.maciek.home.applicationservice.model.ExportReport;
+import com.maciek.home.applicationservice.model.ImportReport;
 import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.SummaryPage;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import com.maciek.home.applicationservice.sevice.ApplicationExporter;
+import com.maciek.home.applicationservice.sevice.ApplicationImporter;
+import com.maciek.home.applicationservice.sevice.ApplicationJsonCache;
 import com.maciek.home.applicationservice.sevice.ApplicationService;
+import com.maciek.home.applicationservice.sevice.CollectionVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.envers.RevisionType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static com.maciek.home.applicationservice.model.State.CREATED;
 import static com.maciek.home.applicationservice.model.State.PUBLISHED;
 import static com.maciek.home.applicationservice.model.State.VERIFIED;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -44,6 +85,28 @@ class ApplicationControllerTest {
     @Mock
     ApplicationService service;
 
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    CollectionVersion collectionVersion;
+
+    @Mock
+    ApplicationImporter importer;
+
+    @Mock
+    ApplicationExporter exporter;
+
+    @Spy
+    ExportProperties exportProperties = new ExportProperties();
+
+    @Mock
+    ChangeFeed changeFeed;
+
+    @Spy
+    ApplicationJsonCache jsonCache = new ApplicationJsonCache(new ObjectMapper(), new JsonCacheProperties(),
+            new SimpleMeterRegistry());
+
     @InjectMocks
     ApplicationController controller;
 
@@ -55,6 +118,9 @@ class ApplicationControllerTest {
     @BeforeEach
     void setup() {
         applicationList = new ArrayList<>();
+        when(collectionVersion.etag()).thenReturn("W/\"1-7\"");
+        when(collectionVersion.etag(any())).thenAnswer(invocation ->
+                invocation.getArgument(0) == ApplicationView.FULL ? "W/\"1-7\"" : "W/\"1-7-summary\"");
         this.mockMvc = MockMvcBuilders
                 .standaloneSetup(controller)
                 .build();
@@ -75,12 +141,65 @@ class ApplicationControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testStats() throws Exception {
+        Map<State, Long> counts = new EnumMap<>(State.class);
+        counts.put(CREATED, 3L);
+        counts.put(PUBLISHED, 1L);
+        when(service.countByState()).thenReturn(counts);
+        mockMvc.perform(get("/applications/stats"))
+                .andExpect(jsonPath("$.CREATED", is(3)))
+                .andExpect(jsonPath("$.PUBLISHED", is(1)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testSearch() throws Exception {
+        when(service.search("wind farm", "published", null))
+                .thenReturn(List.of(new SearchHit(24, "Wind farm", PUBLISHED, 2.5)));
+        mockMvc.perform(get("/applications/search").param("q", "wind farm").param("state", "published"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].id", is(24)))
+                .andExpect(jsonPath("$.[0].state", is("PUBLISHED")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testSearchBadRequest() throws Exception {
+        when(service.search(" ", null, null)).thenThrow(new IllegalArgumentException("Search query is empty"));
+        mockMvc.perform(get("/applications/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testStreamAll() throws Exception {
+        createApplication(22, "B", CREATED);
+        createApplication(24, "A", PUBLISHED);
+        when(service.streamAll(any())).thenAnswer(invocation -> {
+            Consumer<Application> consumer = invocation.getArgument(0);
+            applicationList.forEach(consumer);
+            return (long) applicationList.size();
+        });
+
+        MvcResult mvcResult = mockMvc.perform(get("/applications/all/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("TestA", objectMapper.readValue(lines[1], Application.class).getName());
+    }
+
     @Test
     void testAllByName() throws Exception {
         createApplication(25, "C", VERIFIED);
         createApplication(22, "B", CREATED);
         createApplication(24, "A", PUBLISHED);
-        when(service.findAllOrderByName("desc", 0)).thenReturn(applicationList);
+        when(service.findAllOrderByName("desc", 0, null)).thenReturn(new ApplicationPage(applicationList, null));
 
         mockMvc.perform(get("/applications/name/desc")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -93,7 +212,7 @@ class ApplicationControllerTest {
     void testAllByStateWithPage() throws Exception {
         createApplication(22, "B", CREATED);
         createApplication(21, "A", PUBLISHED);
-        when(service.findAllOrderByState("desc", 1)).thenReturn(new ArrayList<>());
+        when(service.findAllOrderByState("desc", 1, null)).thenReturn(new ApplicationPage(new ArrayList<>(), null));
         mockMvc.perform(get("/applications/state/desc/1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(0)))
@@ -104,7 +223,7 @@ class ApplicationControllerTest {
     void testAllByStateWithoutPage() throws Exception {
         createApplication(22, "B", CREATED);
         createApplication(21, "A", PUBLISHED);
-        when(service.findAllOrderByState("desc", 0)).thenReturn(applicationList);
+        when(service.findAllOrderByState("desc", 0, null)).thenReturn(new ApplicationPage(applicationList, null));
         mockMvc.perform(get("/applications/state/desc/")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(2)))
@@ -112,6 +231,57 @@ class ApplicationControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testAllByNameWithCursor() throws Exception {
+        createApplication(25, "C", VERIFIED);
+        when(service.seekAllOrderByName("asc", "abc", 1)).thenReturn(new ApplicationPage(applicationList, "def"));
+        mockMvc.perform(get("/applications/name/asc?after=abc&limit=1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(ApplicationController.NEXT_CURSOR_HEADER, "def"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testAllByNameSummaryView() throws Exception {
+        List<ApplicationSummary> summaries = List.of(new ApplicationSummary(25L, "TestC", VERIFIED));
+        when(service.seekSummariesOrderByName("asc", "abc", 1)).thenReturn(new SummaryPage(summaries, "def"));
+        mockMvc.perform(get("/applications/name/asc?after=abc&limit=1&view=summary"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].name", is("TestC")))
+                .andExpect(jsonPath("$.[0].content").doesNotExist())
+                .andExpect(header().string(ApplicationController.NEXT_CURSOR_HEADER, "def"))
+                .andExpect(header().string(HttpHeaders.ETAG, collectionVersion.etag(ApplicationView.SUMMARY)))
+                .andExpect(status().isOk());
+        verify(service, never()).seekAllOrderByName(any(), any(), any());
+    }
+
+    @Test
+    void testSummaryViewHasItsOwnETag() throws Exception {
+        mockMvc.perform(get("/applications/all?view=summary")
+                        .header(HttpHeaders.IF_NONE_MATCH, collectionVersion.etag()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/applications/state/asc?view=SUMMARY")
+                        .header(HttpHeaders.IF_NONE_MATCH, collectionVersion.etag(ApplicationView.SUMMARY)))
+                .andExpect(status().isNotModified());
+        verify(service).findAllSummaries();
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    void testUnknownViewBadRequest() throws Exception {
+        mockMvc.perform(get("/applications/all?view=compact"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAllByNameUnknownSort() throws Exception {
+        when(service.findAllOrderByName("up", 0, null)).thenThrow(new IllegalArgumentException("Unknown sorting param: up"));
+        mockMvc.perform(get("/applications/name/up")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetById() throws Exception {
         createApplication(3, "A", PUBLISHED);
@@ -123,6 +293,57 @@ class ApplicationControllerTest {
 
     }
 
+    @Test
+    void testGetByIdHasETag() throws Exception {
+        createApplication(3, "A", PUBLISHED);
+        applicationList.get(0).setVersion(4L);
+        when(service.findById(3L)).thenReturn(applicationList.get(0));
+        mockMvc.perform(get("/applications/3"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetByIdNotModified() throws Exception {
+        when(service.findVersionById(3L)).thenReturn(4L);
+        mockMvc.perform(get("/applications/3")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"4\""))
+                .andExpect(status().isNotModified());
+        verify(service, never()).findById(3L);
+    }
+
+    @Test
+    void testGetAllNotModified() throws Exception {
+        mockMvc.perform(get("/applications/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, collectionVersion.etag()))
+                .andExpect(status().isNotModified());
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    void testVerifyByIdPreconditionFailed() throws Exception {
+        when(service.verifyById(2L, 4L)).thenThrow(new ObjectOptimisticLockingFailureException(Application.class, 2L));
+        mockMvc.perform(put("http://localhost:8088/applications/verify/2")
+                        .header(HttpHeaders.IF_MATCH, "\"4\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testVerifyByIdWeakIfMatchExpectsNoVersion() throws Exception {
+        when(service.verifyById(2L, ETags.NO_VERSION)).thenThrow(new ObjectOptimisticLockingFailureException(Application.class, 2L));
+        mockMvc.perform(put("http://localhost:8088/applications/verify/2")
+                        .header(HttpHeaders.IF_MATCH, "W/\"5\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testVerifyByIdIfMatchListRejected() throws Exception {
+        mockMvc.perform(put("http://localhost:8088/applications/verify/2")
+                        .header(HttpHeaders.IF_MATCH, "\"4\", \"5\""))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).verifyById(2L, 4L);
+    }
+
     @Test
     void testCreate() throws Exception {
         createApplication(22, "B", CREATED);
@@ -165,7 +386,7 @@ class ApplicationControllerTest {
     @Test
     void testRejectById() throws Exception {
         createApplication(2, "A", CREATED);
-        when(service.rejectById(2L, applicationList.get(0))).thenReturn(true);
+        when(service.rejectById(2L, applicationList.get(0), null)).thenReturn(true);
         mockMvc.perform(put("http://localhost:8088/applications/reject/2")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"id\":2,\"name\":\"TestA\",\"content\":\"content of TestA\",\"state\":\"REJECTED\",\"rejectionReason\":\"Application don't met requirements\"}"))
@@ -177,14 +398,14 @@ class ApplicationControllerTest {
     @Test
     void testVerifyById() throws Exception {
 //        createApplication(2, "A", CREATED);
-        when(service.verifyById(2L)).thenReturn(true);
+        when(service.verifyById(2L, null)).thenReturn(true);
         mockMvc.perform(put("http://localhost:8088/applications/verify/2")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
     @Test
     void testDeleteById() throws Exception {
-        when(service.deleteById(2L)).thenReturn(true);
+        when(service.deleteById(2L, null)).thenReturn(true);
         mockMvc.perform(delete("http://localhost:8088/applications/remove/2")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
@@ -192,7 +413,7 @@ class ApplicationControllerTest {
 
     @Test
     void testAcceptById() throws Exception {
-        when(service.acceptById(2L)).thenReturn(true);
+        when(service.acceptById(2L, null)).thenReturn(true);
         mockMvc.perform(put("http://localhost:8088/applications/accept/2")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
@@ -200,12 +421,111 @@ class ApplicationControllerTest {
 
     @Test
     void testPublishById() throws Exception {
-        when(service.publishById(2L)).thenReturn(true);
+        when(service.publishById(2L, null)).thenReturn(true);
         mockMvc.perform(put("http://localhost:8088/applications/publish/2")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testTransitionAll() throws Exception {
+        Map<Long, TransitionOutcome> outcomes = new LinkedHashMap<>();
+        outcomes.put(2L, TransitionOutcome.APPLIED);
+        outcomes.put(3L, TransitionOutcome.NOT_FOUND);
+        when(service.transitionAll(Transition.PUBLISH, List.of(2L, 3L), null)).thenReturn(outcomes);
+        mockMvc.perform(put("http://localhost:8088/applications/bulk/publish")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[2,3]}"))
+                .andExpect(jsonPath("$.2", is("APPLIED")))
+                .andExpect(jsonPath("$.3", is("NOT_FOUND")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testTransitionAllUnknownTransition() throws Exception {
+        mockMvc.perform(put("http://localhost:8088/applications/bulk/archive")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[2,3]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testImportNdjson() throws Exception {
+        ImportReport report = new ImportReport(10);
+        report.accept(1);
+        report.reject(2, "Name and content cannot be empty");
+        when(importer.importNdjson(any())).thenReturn(report);
+        mockMvc.perform(post("http://localhost:8088/applications/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"A\",\"content\":\"a\"}\n{\"name\":\"B\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)));
+        verify(importer, never()).importCsv(any());
+    }
+
+    @Test
+    void testImportCsvWithoutRequiredColumns() throws Exception {
+        when(importer.importCsv(any())).thenThrow(new IllegalArgumentException("CSV header has to contain name and content columns"));
+        mockMvc.perform(post("http://localhost:8088/applications/import")
+                        .contentType("text/csv")
+                        .content("title\nA\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testHistory() throws Exception {
+        List<ApplicationRevision> revisions = List.of(new ApplicationRevision(3, RevisionType.MOD, Instant.now(),
+                "TestA", VERIFIED, null, null, List.of("state")));
+        when(service.findHistory(2L, null, 1)).thenReturn(new RevisionPage(revisions, "cursor"));
+        mockMvc.perform(get("http://localhost:8088/applications/2/history").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ApplicationController.NEXT_CURSOR_HEADER, "cursor"))
+                .andExpect(jsonPath("$[0].revision", is(3)))
+                .andExpect(jsonPath("$[0].state", is("VERIFIED")))
+                .andExpect(jsonPath("$[0].changes[0]", is("state")));
+    }
+
+    @Test
+    void testHistoryOfUnknownApplication() throws Exception {
+        when(service.findHistory(9L, null, null)).thenReturn(new RevisionPage(List.of(), null));
+        mockMvc.perform(get("http://localhost:8088/applications/9/history"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testExport() throws Exception {
+        when(exporter.export(ExportFormat.CSV, true)).thenReturn(
+                ExportReport.of("exports/applications.csv.gz", ExportFormat.CSV, true, 3, 120, Duration.ofMillis(10)));
+        mockMvc.perform(post("http://localhost:8088/applications/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows", is(3)))
+                .andExpect(jsonPath("$.rowsPerSecond", is(300)))
+                .andExpect(jsonPath("$.bytesPerSecond", is(12000)));
+    }
+
+    @Test
+    void testExportUnknownFormat() throws Exception {
+        mockMvc.perform(post("http://localhost:8088/applications/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testEventsResumeFromLastEventId() throws Exception {
+        when(changeFeed.subscribe("run-7")).thenReturn(new FeedEmitter());
+        mockMvc.perform(get("/applications/events").header("Last-Event-ID", "run-7"))
+                .andExpect(request().asyncStarted());
+        verify(changeFeed).subscribe("run-7");
+    }
+
+    @Test
+    void testEventsWhenSubscribersAreFull() throws Exception {
+        mockMvc.perform(get("/applications/events"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
     private void createApplication(int id, String appSuffix, State state) {
         applicationList.add(Application.builder()
                 .id((long) id)
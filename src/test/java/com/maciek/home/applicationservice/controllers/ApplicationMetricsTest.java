@@ -0,0 +1,38 @@
+package com.maciek.home.applicationservice.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ExtendWith(SpringExtension.class)
+class ApplicationMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testPrometheusEndpoint() throws Exception {
+        mockMvc.perform(get("/applications/1")).andExpect(status().isOk());
+        mockMvc.perform(put("/applications/verify/-1")).andExpect(status().isUnprocessableEntity());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{exception=\"None\",method=\"GET\",operation=\"getById\"")))
+                .andExpect(content().string(containsString("applications_transitions_total{outcome=\"NOT_FOUND\",transition=\"VERIFY\",} 1.0")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket{exception=\"None\",method=\"findStateById\"")));
+    }
+}
@@ -0,0 +1,64 @@
+package com.maciek.home.applicationservice.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "applications.async.enabled=true")
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+class AsyncApplicationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    void testBlockingControllerReplaced() {
+        assertTrue(applicationContext.getBeansOfType(ApplicationController.class).isEmpty());
+    }
+
+    @Test
+    void testGetById() throws Exception {
+        mockMvc.perform(dispatched(get("/applications/1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)));
+    }
+
+    @Test
+    void testTransitionOfMissingApplication() throws Exception {
+        mockMvc.perform(dispatched(put("/applications/verify/-1")))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void testBadRequestFromExecutor() throws Exception {
+        mockMvc.perform(dispatched(get("/applications/name/sideways")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private RequestBuilder dispatched(RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return asyncDispatch(started);
+    }
+}
@@ -0,0 +1,30 @@
+package com.maciek.home.applicationservice.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Misses are not cached here, the near cache must not try to put them into a cache that rejects null values
+@SpringBootTest(properties = "applications.cache.cache-missing=false")
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+class UncachedMissTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testGetUnknownId() throws Exception {
+        mockMvc.perform(get("/applications/-1"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/applications/-1"))
+                .andExpect(status().isNoContent());
+    }
+}
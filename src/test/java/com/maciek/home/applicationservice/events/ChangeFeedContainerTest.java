@@ -0,0 +1,91 @@
+package com.maciek.home.applicationservice.events;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+// Streams of a real container, MockMvc has no non-blocking output
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ExtendWith(SpringExtension.class)
+class ChangeFeedContainerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ApplicationService service;
+
+    // The replay of a resuming client is delivered before async processing started
+    @Test
+    void testResumedStreamWritesNonBlocking() {
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            BufferedReader first = subscribe(null);
+            long seen = create("Seen before resuming");
+            String lastEventId = eventIdOf(first, seen);
+            long missed = create("Missed while resuming");
+
+            BufferedReader resumed = subscribe(lastEventId);
+            eventIdOf(resumed, missed);
+            long live = create("Sent after resuming");
+            eventIdOf(resumed, live);
+            eventIdOf(first, live);
+
+            assertEquals(changeFeed.getSubscriberCount(), changeFeed.getNonBlockingSubscriberCount());
+        });
+    }
+
+    private BufferedReader subscribe(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/applications/events"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+    }
+
+    private long create(String name) {
+        Application application = new Application(null, name, "Content of " + name, State.CREATED, null);
+        service.createNew(application);
+        return application.getId();
+    }
+
+    // Reads up to the CREATED event of the application, the id line comes right before its data line
+    private static String eventIdOf(BufferedReader stream, long applicationId) throws Exception {
+        String id = null;
+        String line;
+        while ((line = stream.readLine()) != null) {
+            if (line.startsWith("id:")) {
+                id = line.substring(3);
+            } else if (line.startsWith("data:{\"id\":" + applicationId + ",\"type\":\"CREATED\"")) {
+                return id;
+            }
+        }
+        throw new AssertionError("Stream ended before the event of application " + applicationId);
+    }
+}
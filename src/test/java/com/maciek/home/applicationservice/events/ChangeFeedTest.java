@@ -0,0 +1,106 @@
+package com.maciek.home.applicationservice.events;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+class ChangeFeedTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)\nevent:CREATED\ndata:\\{\"id\":(\\d+)");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationService service;
+
+    @Test
+    void testCommittedChangesAreStreamed() throws Exception {
+        MvcResult stream = subscribe(null);
+        long id = create("Streamed change");
+        service.verifyById(id, null);
+
+        awaitContent(stream, "\"id\":" + id + ",\"type\":\"CREATED\"");
+        awaitContent(stream, "event:TRANSITIONED\ndata:{\"id\":" + id + ",\"type\":\"TRANSITIONED\",\"previousState\":\"CREATED\",\"state\":\"VERIFIED\"}");
+    }
+
+    @Test
+    void testResumeAfterLastEventId() throws Exception {
+        MvcResult first = subscribe(null);
+        long seen = create("Seen before reconnecting");
+        String content = awaitContent(first, "\"id\":" + seen + ",");
+        long missed = create("Missed while disconnected");
+
+        MvcResult resumed = subscribe(eventIdOf(content, seen));
+        String replayed = awaitContent(resumed, "\"id\":" + missed + ",");
+        assertFalse(replayed.contains("\"id\":" + seen + ","));
+    }
+
+    @Test
+    void testUnknownLastEventIdResets() throws Exception {
+        MvcResult stream = subscribe("another-run-42");
+
+        awaitContent(stream, "event:RESET");
+        // The frames are written as plain strings, the stream keeps its own content type
+        assertTrue(stream.getResponse().getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var request = get("/applications/events").accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private long create(String name) throws Exception {
+        Application application = new Application(null, name, "Content of " + name, State.CREATED, null);
+        service.createNew(application);
+        return application.getId();
+    }
+
+    // Events are written by the delivery threads, so wait for them to arrive
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            String content = stream.getResponse().getContentAsString();
+            if (content.contains(expected)) {
+                return content;
+            }
+            Thread.sleep(50);
+        }
+        fail("Stream did not contain " + expected + " but: " + stream.getResponse().getContentAsString());
+        return null;
+    }
+
+    private static String eventIdOf(String content, long applicationId) {
+        Matcher matcher = EVENT_ID.matcher(content);
+        while (matcher.find()) {
+            if (Long.parseLong(matcher.group(2)) == applicationId) {
+                return matcher.group(1);
+            }
+        }
+        fail("No event of application " + applicationId + " in " + content);
+        return null;
+    }
+}
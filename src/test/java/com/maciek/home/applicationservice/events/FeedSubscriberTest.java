@@ -0,0 +1,41 @@
+package com.maciek.home.applicationservice.events;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeedSubscriberTest {
+
+    @Test
+    void testDropOldestKeepsNewestEvents() {
+        FeedSubscriber subscriber = new FeedSubscriber(new FeedEmitter(), 2);
+
+        assertFalse(subscriber.offerDroppingOldest(event(1)));
+        assertFalse(subscriber.offerDroppingOldest(event(2)));
+        assertTrue(subscriber.offerDroppingOldest(event(3)));
+
+        assertEquals(2, subscriber.poll().getSequence());
+        assertEquals(3, subscriber.poll().getSequence());
+        assertNull(subscriber.poll());
+    }
+
+    @Test
+    void testFullBufferRefusesAndReplayComesFirst() {
+        FeedSubscriber subscriber = new FeedSubscriber(new FeedEmitter(), 1);
+        subscriber.replay(event(1));
+
+        assertTrue(subscriber.offer(event(2)));
+        assertFalse(subscriber.offer(event(3)));
+
+        assertEquals(1, subscriber.poll().getSequence());
+        assertEquals(2, subscriber.poll().getSequence());
+        assertFalse(subscriber.hasPending());
+    }
+
+    private static FeedEvent event(long sequence) {
+        return FeedEvent.of(sequence, "test-" + sequence, "CREATED", "{}");
+    }
+}
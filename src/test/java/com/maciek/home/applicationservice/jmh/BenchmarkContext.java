@@ -0,0 +1,39 @@
+package com.maciek.home.applicationservice.jmh;
+
+import com.maciek.home.applicationservice.ApplicationServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Application context on its own in-memory H2 database, seeded with generated rows in a single statement.
+ * The seeding is shared with the HTTP load test.
+ */
+public class BenchmarkContext {
+
+    // Above the ids the pooled sequence hands out while the benchmarks run
+    public static final long FIRST_ID = 10_000_001L;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(ApplicationServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    // Rows in every state, the state ordinal cycles with the id. Contents are stored the way CompressedContentConverter
+    // keeps short ones: a zero byte followed by the UTF-8.
+    public static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update(
+                "insert into application (id, name, content, state, rejection_reason, version) "
+                        + "select ? + x - 1, 'Application ' || lpad(x, 8, '0'), "
+                        + "X'00' || stringtoutf8('Content of application ' || x), mod(x, 5), null, 0 "
+                        + "from system_range(1, ?)", FIRST_ID, rows);
+    }
+}
@@ -0,0 +1,101 @@
+package com.maciek.home.applicationservice.jmh;
+
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.SummaryPage;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import com.maciek.home.applicationservice.sevice.PageCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same page in the middle of the table, read by offset (page number) and by keyset cursor, as whole
+ * applications and as summaries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PagingBenchmarks {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private ApplicationService service;
+    private int middlePage;
+    private String nameCursor;
+    private String stateCursor;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("paging" + rows);
+        BenchmarkContext.seed(context.getBean(JdbcTemplate.class), rows);
+        service = context.getBean(ApplicationService.class);
+        middlePage = rows / 2 / PAGE_SIZE;
+        // Cursors pointing right before the middle page, taken from the page the offset query returns
+        nameCursor = previousPageCursor(service.findAllOrderByName("asc", middlePage - 1, PAGE_SIZE), "name");
+        stateCursor = previousPageCursor(service.findAllOrderByState("asc", middlePage - 1, PAGE_SIZE), "state");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ApplicationPage offsetPageByName() {
+        return service.findAllOrderByName("asc", middlePage, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ApplicationPage seekPageByName() {
+        return service.seekAllOrderByName("asc", nameCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SummaryPage offsetSummaryPageByName() {
+        return service.findSummariesOrderByName("asc", middlePage, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SummaryPage seekSummaryPageByName() {
+        return service.seekSummariesOrderByName("asc", nameCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ApplicationPage offsetPageByState() {
+        return service.findAllOrderByState("asc", middlePage, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ApplicationPage seekPageByState() {
+        return service.seekAllOrderByState("asc", stateCursor, PAGE_SIZE);
+    }
+
+    private String previousPageCursor(ApplicationPage page, String field) {
+        if (page.getNextCursor() == null) {
+            throw new IllegalStateException("No page after the one before the middle of " + field);
+        }
+        // Sanity check that the cursor decodes for the field it is used with
+        PageCursor.decode(page.getNextCursor(), field);
+        return page.getNextCursor();
+    }
+}
@@ -0,0 +1,75 @@
+package com.maciek.home.applicationservice.jmh;
+
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.search.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.maciek.home.applicationservice.model.State.PUBLISHED;
+
+/**
+ * Searches of the in-memory index, a selective query and one whose words every generated row contains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmarks {
+
+    private static final int LIMIT = 10;
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private SearchIndex searchIndex;
+    private String selectiveQuery;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("search" + rows);
+        BenchmarkContext.seed(context.getBean(JdbcTemplate.class), rows);
+        searchIndex = context.getBean(SearchIndex.class);
+        searchIndex.rebuild();
+        // Generated names are zero padded row numbers
+        selectiveQuery = String.format("application %08d", rows / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<SearchHit> selectiveQuery() {
+        return searchIndex.search(selectiveQuery, null, LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchHit> selectiveQueryInState() {
+        return searchIndex.search(selectiveQuery, PUBLISHED, LIMIT);
+    }
+
+    // Ranks every row, the cost grows with the table unlike the selective query
+    @Benchmark
+    public List<SearchHit> queryMatchingAllRows() {
+        return searchIndex.search("content application", null, LIMIT);
+    }
+}
@@ -0,0 +1,81 @@
+package com.maciek.home.applicationservice.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.maciek.home.applicationservice.config.JsonCacheProperties;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.sevice.ApplicationJsonCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of application lists the size of a page and of a /all response, and the same lists joined
+ * from the JSON cache.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmarks {
+
+    @Param({"10", "1000"})
+    int size;
+
+    private List<Application> applications;
+    private ObjectWriter listWriter;
+    private ObjectWriter applicationWriter;
+    private ApplicationJsonCache jsonCache;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Application.class));
+        applicationWriter = objectMapper.writerFor(Application.class);
+        applications = new ArrayList<>(size);
+        State[] states = State.values();
+        for (int i = 0; i < size; i++) {
+            applications.add(new Application((long) i, "Application " + i, "Content of application " + i,
+                    states[i % states.length], null, 0L));
+        }
+        jsonCache = new ApplicationJsonCache(objectMapper, new JsonCacheProperties(), new SimpleMeterRegistry());
+        jsonCache.jsonArray(applications);
+    }
+
+    @Benchmark
+    public byte[] writeList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(applications);
+    }
+
+    // What the NDJSON stream and export do, one value per row
+    @Benchmark
+    public int writeEachRow() throws JsonProcessingException {
+        int bytes = 0;
+        for (Application application : applications) {
+            bytes += applicationWriter.writeValueAsBytes(application).length;
+        }
+        return bytes;
+    }
+
+    // What the full listings do once the applications are cached
+    @Benchmark
+    public byte[] writeListFromCache() {
+        return jsonCache.jsonArray(applications);
+    }
+}
@@ -0,0 +1,88 @@
+package com.maciek.home.applicationservice.jmh;
+
+import com.maciek.home.applicationservice.config.CacheConfig;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findById with and without the near-cache, and a single-row transition (conditional update plus audit row).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmarks {
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private ApplicationService service;
+    private Cache cache;
+    private JdbcTemplate jdbcTemplate;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("service" + rows);
+        BenchmarkContext.seed(context.getBean(JdbcTemplate.class), rows);
+        service = context.getBean(ApplicationService.class);
+        cache = context.getBean(CacheManager.class).getCache(CacheConfig.APPLICATIONS_CACHE);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    // Every iteration starts from CREATED rows, so each verify is an applied transition and not a rejected one
+    @Setup(Level.Iteration)
+    public void resetStates() {
+        jdbcTemplate.update("update application set state = 0 where id >= ?", BenchmarkContext.FIRST_ID);
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Application findByIdCached() {
+        return service.findById(BenchmarkContext.FIRST_ID + rows / 2);
+    }
+
+    @Benchmark
+    public Application findByIdUncached() {
+        long id = nextId();
+        cache.evict(id);
+        return service.findById(id);
+    }
+
+    @Benchmark
+    public boolean verifyById() {
+        return service.verifyById(nextId(), null);
+    }
+
+    private long nextId() {
+        // Wraps on the small table, later verifies of the iteration then measure the WRONG_STATE path
+        return BenchmarkContext.FIRST_ID + (next++ % rows);
+    }
+}
@@ -0,0 +1,125 @@
+package com.maciek.home.applicationservice.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.maciek.home.applicationservice.jmh.BenchmarkContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * HTTP load test of the REST API on a random port with seeded rows. Not part of the regular build, run with
+ * {@code mvn test -P benchmark -Dtest=ApplicationLoadBenchmark}, shaped by the {@code -Dload.*} properties of
+ * {@link LoadProfile}. Percentiles per endpoint are logged and written to {@code target/load-results.json}.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.com.maciek.home.applicationservice=WARN")
+@ExtendWith(SpringExtension.class)
+class ApplicationLoadBenchmark {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LoadProfile profile = new LoadProfile();
+    // Seeded applications with an id of FIRST_ID + 5k - 1 are CREATED, the flow walks through them
+    private final AtomicLong nextCreated = new AtomicLong();
+
+    @Test
+    void runLoad() throws Exception {
+        seed(profile.getRows());
+        Map<String, LoadGenerator.Operation> operations = Map.of(
+                "get", this::getById,
+                "page", this::page,
+                "create", this::create,
+                "flow", this::flow);
+
+        List<EndpointStats> stats;
+        long dropped;
+        try (LoadGenerator generator = new LoadGenerator(profile)) {
+            stats = generator.run(operations);
+            dropped = generator.getDropped();
+        }
+
+        stats.forEach(endpoint -> log.info("{}", endpoint));
+        Path results = Path.of("target", resultsFile());
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(results.toFile(), Map.of("profile", profile.toString(), "dropped", dropped, "endpoints", stats));
+        log.info("Load test results written to {}", results.toAbsolutePath());
+        assertEquals(0, stats.get(stats.size() - 1).getErrors());
+    }
+
+    protected void seed(int rows) {
+        BenchmarkContext.seed(applicationContext.getBean(JdbcTemplate.class), rows);
+    }
+
+    protected String resultsFile() {
+        return "load-results.json";
+    }
+
+    private CompletableFuture<?> getById(LoadGenerator generator, long scheduled) {
+        long id = BenchmarkContext.FIRST_ID + ThreadLocalRandom.current().nextInt(profile.getRows());
+        return generator.send("get", get("/applications/" + id), scheduled);
+    }
+
+    private CompletableFuture<?> page(LoadGenerator generator, long scheduled) {
+        int page = ThreadLocalRandom.current().nextInt(100);
+        String path = ThreadLocalRandom.current().nextBoolean()
+                ? "/applications/name/asc/" + page + "?limit=10"
+                : "/applications/state/desc/" + page + "?limit=10";
+        return generator.send("page", get(path), scheduled);
+    }
+
+    private CompletableFuture<?> create(LoadGenerator generator, long scheduled) {
+        String body = "{\"name\":\"Load application\",\"content\":\"Created by the load test\"}";
+        HttpRequest request = request("/applications/create")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return generator.send("create", request, scheduled);
+    }
+
+    // Each step starts when the previous one answered, so only the first is measured from the schedule
+    private CompletableFuture<?> flow(LoadGenerator generator, long scheduled) {
+        long k = nextCreated.incrementAndGet() % (profile.getRows() / 5) + 1;
+        long id = BenchmarkContext.FIRST_ID + 5 * k - 1;
+        return generator.send("verify", put("/applications/verify/" + id), scheduled)
+                .thenCompose(response -> generator.send("accept", put("/applications/accept/" + id), System.nanoTime()))
+                .thenCompose(response -> generator.send("publish", put("/applications/publish/" + id), System.nanoTime()));
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest put(String path) {
+        return request(path).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+    }
+}
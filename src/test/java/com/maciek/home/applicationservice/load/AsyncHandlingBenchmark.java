@@ -0,0 +1,114 @@
+package com.maciek.home.applicationservice.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.maciek.home.applicationservice.ApplicationServiceApplication;
+import com.maciek.home.applicationservice.jmh.BenchmarkContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of the blocking and the asynchronous handlers against a slow database. Every connection checkout waits
+ * {@code -Dload.db-latency} ms (default 200) and Tomcat gets few threads, so the blocking mode is capped by its servlet
+ * threads while the asynchronous one by the read executor. Run with
+ * {@code mvn test -P benchmark -Dtest=AsyncHandlingBenchmark [-Dload.virtual-threads=true]}, results are logged and
+ * written to {@code target/async-results.json}.
+ */
+@Slf4j
+class AsyncHandlingBenchmark {
+
+    private static final Duration DB_LATENCY = Duration.ofMillis(Integer.getInteger("load.db-latency", 200));
+    private static final int SERVLET_THREADS = Integer.getInteger("load.servlet-threads", 8);
+
+    private final LoadProfile profile = new LoadProfile(100, "get=70,page=30");
+
+    @Test
+    void compareBlockingAndAsync() throws Exception {
+        Map<String, List<EndpointStats>> results = new LinkedHashMap<>();
+        results.put("blocking", run(false));
+        results.put("async", run(true));
+
+        results.forEach((mode, stats) -> stats.forEach(endpoint -> log.info("{} {}", String.format("%-8s", mode), endpoint)));
+        Path path = Path.of("target", "async-results.json");
+        new ObjectMapper().writer(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(path.toFile(), Map.of("profile", profile.toString(), "dbLatencyMillis", DB_LATENCY.toMillis(),
+                        "servletThreads", SERVLET_THREADS, "results", results));
+        log.info("Async handling results written to {}", path.toAbsolutePath());
+
+        EndpointStats blocking = total(results.get("blocking"));
+        EndpointStats async = total(results.get("async"));
+        log.info("Throughput blocking {} req/s, async {} req/s", Math.round(blocking.getThroughput()), Math.round(async.getThroughput()));
+        assertTrue(async.getP99() <= blocking.getP99(), "Async handling should not queue longer than the blocking one");
+    }
+
+    private List<EndpointStats> run(boolean async) {
+        log.info("Starting the {} mode", async ? "async" : "blocking");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ApplicationServiceApplication.class, SlowDatabase.class)
+                // Arguments rather than default properties, those would lose against application.yml
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                        "--server.tomcat.threads.min-spare=" + SERVLET_THREADS,
+                        "--spring.datasource.url=jdbc:h2:mem:async-" + async + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.hikari.maximum-pool-size=64",
+                        // Every read goes to the database, the cache would hide its latency
+                        "--applications.cache.maximum-size=1",
+                        "--applications.async.enabled=" + async,
+                        "--applications.async.virtual-threads=" + Boolean.getBoolean("load.virtual-threads"),
+                        "--logging.level.com.maciek.home.applicationservice.controllers=WARN",
+                        "--logging.level.com.maciek.home.applicationservice.sevice=WARN");
+             LoadGenerator generator = new LoadGenerator(profile)) {
+            BenchmarkContext.seed(context.getBean(JdbcTemplate.class), profile.getRows());
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            Map<String, LoadGenerator.Operation> operations = Map.of(
+                    "get", (load, scheduled) -> {
+                        long id = BenchmarkContext.FIRST_ID + ThreadLocalRandom.current().nextInt(profile.getRows());
+                        return load.send("get", get(port, "/applications/" + id), scheduled);
+                    },
+                    "page", (load, scheduled) -> {
+                        int page = ThreadLocalRandom.current().nextInt(100);
+                        return load.send("page", get(port, "/applications/name/asc/" + page + "?limit=10"), scheduled);
+                    });
+            return generator.run(operations);
+        }
+    }
+
+    private static EndpointStats total(List<EndpointStats> stats) {
+        return stats.get(stats.size() - 1);
+    }
+
+    private static HttpRequest get(int port, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+
+    // Passed to the builder, not a @Configuration, so contexts that scan the test classes do not pick it up
+    static class SlowDatabase {
+
+        @Bean
+        static BeanPostProcessor slowDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? new SlowDataSource((DataSource) bean, DB_LATENCY) : bean;
+                }
+            };
+        }
+    }
+}
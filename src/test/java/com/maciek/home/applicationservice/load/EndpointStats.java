@@ -0,0 +1,38 @@
+package com.maciek.home.applicationservice.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies of one endpoint in milliseconds, measured from the intended start of each request.
+ */
+@Getter
+@AllArgsConstructor
+class EndpointStats {
+
+    private final String endpoint;
+    private final long requests;
+    private final long errors;
+    private final double throughput;
+    private final double p50;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    static EndpointStats of(String endpoint, Histogram histogram, long errors, double seconds) {
+        return new EndpointStats(endpoint, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-10s %8d req %6d err %9.1f req/s   p50 %8.2f ms   p99 %8.2f ms   p99.9 %8.2f ms   max %8.2f ms",
+                endpoint, requests, errors, throughput, p50, p99, p999, max);
+    }
+}
@@ -0,0 +1,138 @@
+package com.maciek.home.applicationservice.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: operations are started on a fixed schedule whether or not earlier ones have finished, and each
+ * latency is taken from the scheduled start, so a slow server cannot hide its queueing (no coordinated omission).
+ */
+@Slf4j
+class LoadGenerator implements AutoCloseable {
+
+    // Started at its scheduled time, the returned future completes when the operation's last response arrived
+    interface Operation {
+        CompletableFuture<?> start(LoadGenerator generator, long scheduledNanos);
+    }
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoadProfile profile;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    LoadGenerator(LoadProfile profile) {
+        this.profile = profile;
+        this.executor = Executors.newFixedThreadPool(profile.getClients());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+    }
+
+    CompletableFuture<HttpResponse<String>> send(String endpoint, HttpRequest request, long startNanos) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, failure) -> {
+                    recorders.computeIfAbsent(endpoint, name -> new Recorder(HIGHEST_TRACKABLE_NANOS, 3))
+                            .recordValue(Math.min(System.nanoTime() - startNanos, HIGHEST_TRACKABLE_NANOS));
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.computeIfAbsent(endpoint, name -> new LongAdder()).increment();
+                    }
+                });
+    }
+
+    // Runs the warmup and the measured phase, only the latter is returned
+    List<EndpointStats> run(Map<String, Operation> operations) {
+        log.info("Warming up for {} s", profile.getWarmup().getSeconds());
+        drive(operations, profile.getWarmup().toNanos());
+        recorders.values().forEach(Recorder::reset);
+        errors.clear();
+        dropped.reset();
+
+        log.info("Measuring for {} s: {}", profile.getDuration().getSeconds(), profile);
+        long start = System.nanoTime();
+        drive(operations, profile.getDuration().toNanos());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<EndpointStats> stats = new ArrayList<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long totalErrors = 0;
+        for (Map.Entry<String, Recorder> entry : new TreeMap<>(recorders).entrySet()) {
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            long endpointErrors = errors.getOrDefault(entry.getKey(), new LongAdder()).sum();
+            stats.add(EndpointStats.of(entry.getKey(), histogram, endpointErrors, seconds));
+            total.add(histogram);
+            totalErrors += endpointErrors;
+        }
+        stats.add(EndpointStats.of("total", total, totalErrors, seconds));
+        if (dropped.sum() > 0) {
+            log.warn("Dropped {} operations, more than {} were waiting for a response", dropped.sum(), profile.getMaxInFlight());
+        }
+        return stats;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drive(Map<String, Operation> operations, long durationNanos) {
+        List<Operation> weighted = new ArrayList<>();
+        profile.getMix().forEach((name, weight) -> {
+            Operation operation = operations.get(name);
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown operation in load.mix: " + name);
+            }
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        long interval = TimeUnit.SECONDS.toNanos(1) / profile.getRate();
+        long start = System.nanoTime();
+        for (long i = 0; interval * i < durationNanos; i++) {
+            long scheduled = start + interval * i;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= profile.getMaxInFlight()) {
+                dropped.increment();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            Operation operation = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+            operation.start(this, scheduled).whenComplete((result, failure) -> inFlight.decrementAndGet());
+        }
+        // Operations started near the end still count, their responses are awaited
+        long deadline = System.nanoTime() + HIGHEST_TRACKABLE_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,54 @@
+package com.maciek.home.applicationservice.load;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shape of a load test run, read from -Dload.* system properties so it can be changed from the Maven command line.
+ */
+@Getter
+class LoadProfile {
+
+    // Operations started per second, independent of how fast responses come back (open model)
+    private final int rate;
+    private final Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 5));
+    private final Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 20));
+    // Threads of the HTTP client, responses are handled on them
+    private final int clients = Integer.getInteger("load.clients", 64);
+    // Operations still waiting for a response beyond this are dropped and counted instead of queued without bound
+    private final int maxInFlight = Integer.getInteger("load.max-in-flight", 5000);
+    private final int rows = Integer.getInteger("load.rows", 100000);
+    // Relative weights of the operations, flow is verify, accept and publish of one application
+    private final Map<String, Integer> mix;
+
+    LoadProfile() {
+        this(200, "get=50,page=25,create=10,flow=15");
+    }
+
+    // Defaults of a particular test, the system properties still win
+    LoadProfile(int defaultRate, String defaultMix) {
+        this.rate = Integer.getInteger("load.rate", defaultRate);
+        this.mix = parseMix(System.getProperty("load.mix", defaultMix));
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed load.mix entry: " + entry);
+            }
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return "rate " + rate + "/s, warmup " + warmup.getSeconds() + " s, duration " + duration.getSeconds() + " s, "
+                + clients + " clients, " + rows + " rows, mix " + mix;
+    }
+}
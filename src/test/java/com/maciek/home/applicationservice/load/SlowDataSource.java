@@ -0,0 +1,35 @@
+package com.maciek.home.applicationservice.load;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adds a fixed latency to every connection checkout, so each transaction behaves as if the database were remote and
+ * busy while the in-memory H2 still does the work.
+ */
+class SlowDataSource extends DelegatingDataSource {
+
+    private final long latencyNanos;
+
+    SlowDataSource(DataSource target, Duration latency) {
+        super(target);
+        this.latencyNanos = latency.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        LockSupport.parkNanos(latencyNanos);
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        LockSupport.parkNanos(latencyNanos);
+        return super.getConnection(username, password);
+    }
+}
@@ -0,0 +1,163 @@
+package com.maciek.home.applicationservice.outbox;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.OutboxMessage;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.PUBLISHED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+// Background dispatcher off, batches are dispatched by the test
+@SpringBootTest(properties = {"applications.outbox.enabled=false", "applications.outbox.batch-size=2",
+        "applications.outbox.max-attempts=2", "applications.outbox.initial-backoff=1h", "applications.outbox.max-backoff=4h"})
+@ExtendWith(SpringExtension.class)
+class OutboxDispatcherTest {
+
+    @MockBean
+    private OutboxSink sink;
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private ApplicationService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from outbox_message");
+        reset(sink);
+    }
+
+    @Test
+    void testPublishWritesOutboxRow() throws Exception {
+        long id = accepted("OutboxA");
+        assertFalse(service.verifyById(id, null));
+        assertEquals(0, pending());
+
+        assertTrue(service.publishById(id, null));
+        assertFalse(service.publishById(id, null));
+        assertEquals(List.of(id), jdbcTemplate.queryForList("select application_id from outbox_message", Long.class));
+        verifyNoInteractions(sink);
+    }
+
+    @Test
+    void testRolledBackPublishLeavesNoOutboxRow() throws Exception {
+        long id = accepted("OutboxB");
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(service.publishById(id, null));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, pending());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDispatchDeliversInBatchesAndMarksDone() throws Exception {
+        List<Long> ids = List.of(accepted("OutboxC"), accepted("OutboxD"), accepted("OutboxE"));
+        service.transitionAll(Transition.PUBLISH, ids, null);
+        double delivered = meterRegistry.get("applications.outbox.delivered").counter().count();
+
+        assertEquals(2, dispatcher.dispatch());
+        assertEquals(1, dispatcher.dispatch());
+        assertEquals(0, dispatcher.dispatch());
+
+        ArgumentCaptor<List<OutboxEvent>> batches = ArgumentCaptor.forClass(List.class);
+        verify(sink, times(2)).send(batches.capture());
+        List<OutboxEvent> events = new ArrayList<>();
+        batches.getAllValues().forEach(events::addAll);
+        assertEquals(ids, events.stream().map(event -> event.getApplication().getId()).collect(Collectors.toList()));
+        assertTrue(events.stream().allMatch(event -> event.getApplication().getState() == PUBLISHED));
+        assertEquals(3, statuses().get(OutboxMessage.Status.DONE.ordinal()));
+        assertEquals(delivered + 3, meterRegistry.get("applications.outbox.delivered").counter().count());
+    }
+
+    @Test
+    void testFailedDeliveryIsRetriedAfterBackoffThenGivenUp() throws Exception {
+        long id = accepted("OutboxF");
+        service.publishById(id, null);
+        doThrow(new IOException("downstream unavailable")).when(sink).send(anyList());
+
+        assertEquals(1, dispatcher.dispatch());
+        // Backing off for an hour
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(1, pending());
+        assertEquals(1, jdbcTemplate.queryForObject("select attempts from outbox_message", Integer.class));
+        assertTrue(jdbcTemplate.queryForObject("select last_error from outbox_message", String.class)
+                .contains("downstream unavailable"));
+
+        jdbcTemplate.update("update outbox_message set next_attempt_at = 0");
+        assertEquals(1, dispatcher.dispatch());
+        assertEquals(1, statuses().get(OutboxMessage.Status.FAILED.ordinal()));
+        assertEquals(0, pending());
+
+        jdbcTemplate.update("update outbox_message set status = ?, next_attempt_at = 0", OutboxMessage.Status.PENDING.ordinal());
+        doNothing().when(sink).send(anyList());
+        assertEquals(1, dispatcher.dispatch());
+        assertEquals(1, statuses().get(OutboxMessage.Status.DONE.ordinal()));
+    }
+
+    @Test
+    void testBackoffDoublesUpToMaximum() {
+        assertEquals(Duration.ofHours(1).toMillis(), dispatcher.backoffMillis(1));
+        assertEquals(Duration.ofHours(2).toMillis(), dispatcher.backoffMillis(2));
+        assertEquals(Duration.ofHours(4).toMillis(), dispatcher.backoffMillis(3));
+        assertEquals(Duration.ofHours(4).toMillis(), dispatcher.backoffMillis(30));
+    }
+
+    private long accepted(String name) throws Exception {
+        Application application = new Application(null, name, "Outbox content", CREATED, null);
+        service.createNew(application);
+        service.verifyById(application.getId(), null);
+        service.acceptById(application.getId(), null);
+        return application.getId();
+    }
+
+    private int pending() {
+        return statuses().getOrDefault(OutboxMessage.Status.PENDING.ordinal(), 0);
+    }
+
+    private Map<Integer, Integer> statuses() {
+        return jdbcTemplate.queryForList("select status, count(*) as total from outbox_message group by status").stream()
+                .collect(Collectors.toMap(row -> ((Number) row.get("STATUS")).intValue(),
+                        row -> ((Number) row.get("TOTAL")).intValue()));
+    }
+}
@@ -0,0 +1,77 @@
+package com.maciek.home.applicationservice.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Polling slower than the test waits, so delivery relies on the dispatcher being woken by the publish
+@SpringBootTest(properties = {"applications.outbox.enabled=true", "applications.outbox.poll-interval=1m"})
+@ExtendWith(SpringExtension.class)
+class OutboxFileSinkTest {
+
+    @TempDir
+    static Path outboxDirectory;
+
+    @DynamicPropertySource
+    static void outboxProperties(DynamicPropertyRegistry registry) {
+        registry.add("applications.outbox.directory", () -> outboxDirectory.toString());
+    }
+
+    @Autowired
+    private ApplicationService service;
+
+    @Autowired
+    private FileOutboxSink sink;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testPublishedApplicationIsAppendedToFile() throws Exception {
+        Application application = new Application(null, "OutboxFile", "Outbox content", CREATED, null);
+        service.createNew(application);
+        long id = application.getId();
+        service.verifyById(id, null);
+        service.acceptById(id, null);
+        assertTrue(service.publishById(id, null));
+
+        List<String> lines = awaitLines(1);
+        JsonNode event = objectMapper.readTree(lines.get(0));
+        assertTrue(event.get("messageId").asLong() > 0);
+        assertTrue(event.hasNonNull("publishedAt"));
+        assertEquals(id, event.get("application").get("id").asLong());
+        assertEquals("PUBLISHED", event.get("application").get("state").asText());
+    }
+
+    private List<String> awaitLines(int count) throws Exception {
+        Path file = sink.getFile();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(file)) {
+                List<String> lines = Files.readAllLines(file);
+                if (lines.size() >= count) {
+                    return lines;
+                }
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("No outbox file written within 10s: " + file);
+    }
+}
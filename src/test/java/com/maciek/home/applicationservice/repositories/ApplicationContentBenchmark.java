@@ -0,0 +1,124 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.config.ContentProperties;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.CompressedContentConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Storage size and read latency of large application contents stored deflated against the same contents stored
+ * plain, and of loading the applications without their content at all. Not part of the regular build, run with
+ * {@code mvn test -P benchmark -Dtest=ApplicationContentBenchmark [-Dbenchmark.rows=2000 -Dbenchmark.content-size=65536]}.
+ */
+@Slf4j
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class ApplicationContentBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 2000);
+    private static final int CONTENT_SIZE = Integer.getInteger("benchmark.content-size", 32 * 1024);
+    private static final int ROUNDS = 5;
+    private static final long PLAIN_IDS = 700_000_000L;
+    private static final String DEFLATED_NAME = "Deflated content benchmark";
+    private static final String PLAIN_NAME = "Plain content benchmark";
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void compareStorageAndReads() {
+        seed();
+        long deflatedBytes = storedBytes(DEFLATED_NAME);
+        long plainBytes = storedBytes(PLAIN_NAME);
+        log.info("{} contents of {} bytes: {} MB stored plain, {} MB deflated ({} times smaller)", ROWS, CONTENT_SIZE,
+                plainBytes / 1_000_000, deflatedBytes / 1_000_000, String.format("%.1f", (double) plainBytes / deflatedBytes));
+
+        double plain = measure("plain, with content", () -> load(PLAIN_NAME, true));
+        double deflated = measure("deflated, with content", () -> load(DEFLATED_NAME, true));
+        double lazy = measure("without content", () -> load(DEFLATED_NAME, false));
+        log.info("Reading deflated contents takes {} times the plain reads, leaving content out {} times",
+                String.format("%.2f", deflated / plain), String.format("%.2f", lazy / plain));
+        assertTrue(deflatedBytes < plainBytes);
+        assertTrue(lazy < deflated);
+    }
+
+    private void seed() {
+        String content = ApplicationContentStorageTest.payload(CONTENT_SIZE);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Application> applications = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                applications.add(new Application(null, DEFLATED_NAME, content + i, CREATED, null));
+            }
+            repository.saveAll(applications);
+        });
+        // Stored by a converter that never deflates, the way the column held content before
+        ContentProperties plainProperties = new ContentProperties();
+        plainProperties.setCompressionThreshold(DataSize.ofBytes(Integer.MAX_VALUE));
+        CompressedContentConverter plainConverter = new CompressedContentConverter(plainProperties);
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{PLAIN_IDS + i, PLAIN_NAME, plainConverter.convertToDatabaseColumn(content + i), CREATED.ordinal()});
+        }
+        jdbcTemplate.batchUpdate("insert into application (id, name, content, state, version) values (?, ?, ?, ?, 0)", rows);
+    }
+
+    private long storedBytes(String name) {
+        return jdbcTemplate.queryForObject("select sum(length(content)) from application where name = ?", Long.class, name);
+    }
+
+    private int load(String name, boolean withContent) {
+        return transactionTemplate.execute(status -> {
+            List<Application> applications = entityManager
+                    .createQuery(withContent
+                            ? "select a from Application a fetch all properties where a.name = :name"
+                            : "select a from Application a where a.name = :name", Application.class)
+                    .setParameter("name", name)
+                    .getResultList();
+            int length = 0;
+            for (Application application : applications) {
+                length += withContent ? application.getContent().length() : application.getName().length();
+            }
+            entityManager.clear();
+            return length > 0 ? applications.size() : 0;
+        });
+    }
+
+    private double measure(String name, Supplier<Integer> reads) {
+        // First round warms up the JIT and the page cache of H2
+        assertEquals(ROWS, reads.get());
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            reads.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+        log.info("{}: {} rows in {} ms, {} rows/s", name, ROWS, String.format("%.1f", millis),
+                String.format("%.0f", ROWS / millis * 1000));
+        return millis;
+    }
+}
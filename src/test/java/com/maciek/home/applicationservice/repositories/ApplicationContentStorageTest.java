@@ -0,0 +1,113 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.model.Application;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.nio.charset.StandardCharsets;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static com.maciek.home.applicationservice.model.Transition.VERIFY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest
+@Transactional
+@ExtendWith(SpringExtension.class)
+class ApplicationContentStorageTest {
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testLargeContentIsStoredDeflated() {
+        String content = payload(64 * 1024);
+        long id = save(content);
+
+        int utf8Length = content.getBytes(StandardCharsets.UTF_8).length;
+        int storedLength = storedLength(id);
+        log.info("Content of {} bytes stored in {} bytes", utf8Length, storedLength);
+        assertTrue(storedLength * 4 < utf8Length);
+        assertEquals(content, repository.findWithContentById(id).orElseThrow().getContent());
+    }
+
+    @Test
+    void testShortContentIsStoredPlain() {
+        long id = save("Test Content");
+
+        // One byte telling the encoding apart
+        assertEquals("Test Content".length() + 1, storedLength(id));
+        assertEquals("Test Content", repository.findWithContentById(id).orElseThrow().getContent());
+    }
+
+    @Test
+    void testContentIsLoadedOnlyWhenAccessed() {
+        String content = payload(8 * 1024);
+        long id = save(content);
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+
+        Application application = repository.findById(id).orElseThrow();
+        assertFalse(persistenceUnitUtil.isLoaded(application, "content"));
+        assertEquals(content, application.getContent());
+        assertTrue(persistenceUnitUtil.isLoaded(application, "content"));
+
+        entityManager.clear();
+        assertTrue(persistenceUnitUtil.isLoaded(repository.findWithContentById(id).orElseThrow(), "content"));
+    }
+
+    @Test
+    void testTransitionLeavesContentAlone() {
+        String content = payload(8 * 1024);
+        long id = save(content);
+        int storedLength = storedLength(id);
+
+        repository.transition(id, VERIFY, null, null);
+        entityManager.clear();
+
+        Application verified = repository.findById(id).orElseThrow();
+        assertEquals(VERIFIED, verified.getState());
+        assertFalse(entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(verified, "content"));
+        assertEquals(storedLength, storedLength(id));
+        assertEquals(content, verified.getContent());
+    }
+
+    private long save(String content) {
+        long id = repository.save(new Application(null, "Storage test", content, CREATED, null)).getId();
+        entityManager.flush();
+        entityManager.clear();
+        return id;
+    }
+
+    private int storedLength(long id) {
+        return jdbcTemplate.queryForObject("select length(content) from application where id = ?", Integer.class, id);
+    }
+
+    // Structured, repetitive text like the large form payloads some applications carry
+    static String payload(int length) {
+        StringBuilder payload = new StringBuilder(length + 128);
+        for (int field = 0; payload.length() < length; field++) {
+            payload.append("{\"field\":\"attachment-").append(field)
+                    .append("\",\"description\":\"Scanned page ").append(field % 37)
+                    .append(" of the registration documents\",\"checksum\":").append(field * 7919L % 100_003)
+                    .append("}\n");
+        }
+        return payload.toString();
+    }
+}
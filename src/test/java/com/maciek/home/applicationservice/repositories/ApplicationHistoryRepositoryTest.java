@@ -0,0 +1,68 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.Transition;
+import org.hibernate.envers.RevisionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.REJECTED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Envers writes revisions on commit, so every step runs in its own committed transaction
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class ApplicationHistoryRepositoryTest {
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long id;
+
+    @BeforeEach
+    void setUp() {
+        id = transactionTemplate.execute(status ->
+                repository.save(new Application(null, "HistoryName", "First content", CREATED, null)).getId());
+        transactionTemplate.executeWithoutResult(status -> repository.transition(id, Transition.VERIFY, null, null));
+        transactionTemplate.executeWithoutResult(status -> repository.findById(id).orElseThrow().setContent("Second content"));
+        transactionTemplate.executeWithoutResult(status -> repository.transition(id, Transition.REJECT, "Incomplete", null));
+    }
+
+    @Test
+    void testFindRevisions() {
+        List<ApplicationRevision> revisions = transactionTemplate.execute(status -> repository.findRevisions(id, null, 10));
+
+        assertEquals(4, revisions.size());
+        assertEquals(REJECTED, revisions.get(0).getState());
+        assertEquals("Incomplete", revisions.get(0).getRejectionReason());
+        assertEquals("Second content", revisions.get(1).getContent());
+        assertEquals(VERIFIED, revisions.get(2).getState());
+        assertEquals(RevisionType.ADD, revisions.get(3).getType());
+        assertTrue(revisions.get(0).getRevision() > revisions.get(1).getRevision());
+        assertTrue(revisions.get(3).getTimestamp().toEpochMilli() > 0);
+    }
+
+    @Test
+    void testFindRevisionsBefore() {
+        List<ApplicationRevision> all = transactionTemplate.execute(status -> repository.findRevisions(id, null, 10));
+        List<ApplicationRevision> older = transactionTemplate.execute(status ->
+                repository.findRevisions(id, all.get(1).getRevision(), 1));
+
+        assertEquals(1, older.size());
+        assertEquals(all.get(2).getRevision(), older.get(0).getRevision());
+    }
+}
@@ -0,0 +1,97 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.model.Application;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Insert throughput of one save per row (the old write path) against saveAll in transaction-sized chunks with
+ * JDBC batching. Not part of the regular build, run with {@code mvn test -P benchmark}; add
+ * {@code -Dspring.jpa.properties.applications.id.allocation_size=1} to see the cost of a sequence call per row.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ExtendWith(SpringExtension.class)
+class ApplicationInsertBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20000);
+    private static final int CHUNK = 1000;
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void compareInsertThroughput() {
+        double single = measure("save per row", () -> {
+            for (int i = 0; i < ROWS; i++) {
+                repository.save(newApplication(i));
+            }
+        });
+        double batched = measure("batched saveAll", () -> {
+            for (int from = 0; from < ROWS; from += CHUNK) {
+                int start = from;
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Application> chunk = new ArrayList<>(CHUNK);
+                    for (int i = start; i < Math.min(start + CHUNK, ROWS); i++) {
+                        chunk.add(newApplication(i));
+                    }
+                    repository.saveAll(chunk);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+            }
+        });
+        log.info("Batched inserts are {} times faster", String.format("%.1f", batched / single));
+        assertTrue(batched > single);
+    }
+
+    private double measure(String name, Runnable inserts) {
+        statistics.clear();
+        long start = System.nanoTime();
+        inserts.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rowsPerSecond = ROWS / seconds;
+        log.info("{}: {} rows in {} s, {} rows/s, {} JDBC statements prepared, {} transactions", name, ROWS,
+                String.format("%.2f", seconds), String.format("%.0f", rowsPerSecond),
+                statistics.getPrepareStatementCount(), statistics.getTransactionCount());
+        return rowsPerSecond;
+    }
+
+    private static Application newApplication(int i) {
+        return Application.builder()
+                .name("Benchmark application " + i)
+                .content("Content of benchmark application " + i)
+                .build();
+    }
+}
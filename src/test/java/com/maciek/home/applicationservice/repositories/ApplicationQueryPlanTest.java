@@ -0,0 +1,84 @@
+package com.maciek.home.applicationservice.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL Hibernate generates for the listing queries, so a full table scan and sort cannot
+ * come back unnoticed.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.maciek.home.applicationservice.repositories.RecordingStatementInspector")
+@ExtendWith(SpringExtension.class)
+class ApplicationQueryPlanTest {
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testOrderByNameUsesIndex() {
+        repository.findAllByOrderByNameAscIdAsc(PageRequest.of(2, 10));
+        assertIndexSorted(10, 20);
+        repository.findAllByOrderByNameDescIdDesc(PageRequest.of(2, 10));
+        assertIndexSorted(10, 20);
+    }
+
+    @Test
+    void testOrderByStateUsesIndex() {
+        repository.findAllByOrderByStateAscIdAsc(PageRequest.of(2, 10));
+        assertIndexSorted(10, 20);
+        repository.findAllByOrderByStateDescIdDesc(PageRequest.of(2, 10));
+        assertIndexSorted(10, 20);
+    }
+
+    @Test
+    void testSeekByNameUsesIndexRange() {
+        repository.findNameAscAfter("New", 3L, PageRequest.of(0, 10));
+        assertIndexRange("New", "New", 3L, 10);
+        repository.findNameDescAfter("New", 3L, PageRequest.of(0, 10));
+        assertIndexRange("New", "New", 3L, 10);
+    }
+
+    @Test
+    void testSeekByStateUsesIndexRange() {
+        repository.findStateAscAfter(VERIFIED, 3L, PageRequest.of(0, 10));
+        assertIndexRange(VERIFIED.ordinal(), VERIFIED.ordinal(), 3L, 10);
+        repository.findStateDescAfter(VERIFIED, 3L, PageRequest.of(0, 10));
+        assertIndexRange(VERIFIED.ordinal(), VERIFIED.ordinal(), 3L, 10);
+    }
+
+    @Test
+    void testCountByStateUsesIndex() {
+        repository.countByState();
+        String plan = explain();
+        assertTrue(plan.contains("/* group sorted */"), plan);
+    }
+
+    private void assertIndexSorted(Object... parameters) {
+        String plan = explain(parameters);
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.contains("/* index sorted */"), plan);
+    }
+
+    private void assertIndexRange(Object... parameters) {
+        String plan = explain(parameters);
+        assertTrue(plan.matches("(?s).*/\\* PUBLIC\\.IDX_APPLICATION_\\w+: .*"), plan);
+        assertTrue(plan.contains("/* index sorted */"), plan);
+    }
+
+    private String explain(Object... parameters) {
+        return jdbcTemplate.queryForObject("explain " + RecordingStatementInspector.lastSql(), String.class, parameters);
+    }
+}
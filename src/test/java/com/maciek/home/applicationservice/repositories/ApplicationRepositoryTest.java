@@ -0,0 +1,140 @@
+package com.maciek.home.applicationservice.repositories;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import com.maciek.home.applicationservice.model.TransitionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.maciek.home.applicationservice.model.State.ACCEPTED;
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.REJECTED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static com.maciek.home.applicationservice.model.Transition.REJECT;
+import static com.maciek.home.applicationservice.model.Transition.VERIFY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(SpringExtension.class)
+class ApplicationRepositoryTest {
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Application created;
+    private Application verified;
+    private Application accepted;
+
+    @BeforeEach
+    void setUp() {
+        created = repository.save(new Application(null, "TestNameA", "Test Content", CREATED, null));
+        verified = repository.save(new Application(null, "TestNameB", "Test Content", VERIFIED, null));
+        accepted = repository.save(new Application(null, "TestNameC", "Test Content", ACCEPTED, null));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testTransitionAll() {
+        Map<Long, State> previousStates = repository.transitionAll(
+                List.of(created.getId(), verified.getId(), -1L), VERIFY, null);
+
+        assertEquals(CREATED, previousStates.get(created.getId()));
+        assertEquals(VERIFIED, previousStates.get(verified.getId()));
+        assertFalse(previousStates.containsKey(-1L));
+        entityManager.clear();
+        assertEquals(VERIFIED, repository.findById(created.getId()).orElseThrow().getState());
+        assertEquals(verified.getVersion(), repository.findVersionById(verified.getId()).orElseThrow());
+    }
+
+    @Test
+    void testTransitionAllRejectSetsReasonAndAudits() {
+        repository.transitionAll(List.of(verified.getId(), accepted.getId()), REJECT, "Missing documents");
+        entityManager.clear();
+
+        Application rejected = repository.findById(accepted.getId()).orElseThrow();
+        assertEquals(REJECTED, rejected.getState());
+        assertEquals("Missing documents", rejected.getRejectionReason());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from application_aud where id in (?, ?) and state = ?", Integer.class,
+                verified.getId(), accepted.getId(), REJECTED.ordinal()));
+    }
+
+    @Test
+    void testTransitionIsConditional() {
+        assertEquals(CREATED, repository.transition(created.getId(), VERIFY, null, null).getState());
+        TransitionResult repeated = repository.transition(created.getId(), VERIFY, null, null);
+        assertEquals(TransitionOutcome.WRONG_STATE, repeated.getOutcome());
+        assertEquals(VERIFIED, repeated.getState());
+        assertEquals(TransitionOutcome.NOT_FOUND, repository.transition(-1L, VERIFY, null, null).getOutcome());
+        assertEquals(created.getVersion() + 1, repository.findVersionById(created.getId()).orElseThrow());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from application_aud where id = ? and state = ?", Integer.class,
+                created.getId(), VERIFIED.ordinal()));
+    }
+
+    @Test
+    void testTransitionChecksExpectedVersion() {
+        long version = created.getVersion();
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> repository.transition(created.getId(), VERIFY, null, version + 1));
+        assertEquals(CREATED, repository.findById(created.getId()).orElseThrow().getState());
+        assertEquals(CREATED, repository.transition(created.getId(), VERIFY, null, version).getState());
+    }
+
+    @Test
+    void testTransitionReportsRejectedSourceState() {
+        TransitionResult result = repository.transition(accepted.getId(), REJECT, "Missing documents", null);
+        assertEquals(TransitionOutcome.APPLIED, result.getOutcome());
+        assertEquals(ACCEPTED, result.getState());
+    }
+
+    @Test
+    void testCountByState() {
+        Map<State, Long> counts = new EnumMap<>(State.class);
+        repository.countByState().forEach(count -> counts.put(count.getState(), count.getTotal()));
+        assertEquals(repository.count(), counts.values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(counts.get(ACCEPTED) >= 1);
+    }
+
+    @Test
+    void testDeleteInState() {
+        assertFalse(repository.deleteInState(verified.getId(), CREATED, null));
+        assertTrue(repository.deleteInState(created.getId(), CREATED, null));
+        assertTrue(repository.findById(created.getId()).isEmpty());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from application_aud where id = ? and revtype = 2", Integer.class, created.getId()));
+    }
+
+    @Test
+    void testDeleteInStateChecksExpectedVersion() {
+        long version = created.getVersion();
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> repository.deleteInState(created.getId(), CREATED, version + 1));
+        assertTrue(repository.findById(created.getId()).isPresent());
+        assertTrue(repository.deleteInState(created.getId(), CREATED, version));
+    }
+}
@@ -0,0 +1,82 @@
+package com.maciek.home.applicationservice.search;
+
+import com.maciek.home.applicationservice.model.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.PUBLISHED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    @Test
+    void testMatchesAllWordsAndRanksNameAboveContent() {
+        InvertedIndex index = new InvertedIndex(3);
+        index.put(1, "Solar farm", "Grant for a wind and solar park", CREATED);
+        index.put(2, "Wind park", "Onshore wind farm, phase two", CREATED);
+        index.put(3, "Library", "Books about wind", CREATED);
+
+        assertEquals(List.of(2L, 1L), ids(index.search("WIND, park!", null, 10)));
+        assertEquals(List.of(1L), ids(index.search("solar", null, 10)));
+        assertEquals(List.of(), ids(index.search("wind hydro", null, 10)));
+        assertEquals(List.of(), ids(index.search("a ?", null, 10)));
+    }
+
+    @Test
+    void testStateFilterUpdatesAndRemoves() {
+        InvertedIndex index = new InvertedIndex(3);
+        index.put(1, "Bridge", "Steel bridge", CREATED);
+        index.put(2, "Tunnel", "Steel tunnel", CREATED);
+        index.setState(2, PUBLISHED);
+
+        assertEquals(List.of(2L), ids(index.search("steel", PUBLISHED, 10)));
+        assertEquals(List.of(1L), ids(index.search("steel", CREATED, 10)));
+
+        index.put(1, "Bridge", "Wooden bridge", VERIFIED);
+        assertEquals(List.of(2L), ids(index.search("steel", null, 10)));
+        assertEquals(VERIFIED, index.search("wooden", null, 10).get(0).getState());
+
+        index.remove(2);
+        assertEquals(List.of(), ids(index.search("steel", null, 10)));
+        assertEquals(1, index.size());
+        assertEquals(2, index.staleCount());
+    }
+
+    @Test
+    void testKeepsBestHitsUpToLimit() {
+        InvertedIndex index = new InvertedIndex(3);
+        for (long id = 1; id <= 1000; id++) {
+            // Every tenth application repeats the word, those score higher
+            index.put(id, "Application " + id, id % 10 == 0 ? "grant grant grant" : "grant", CREATED);
+        }
+        index.trim();
+
+        List<SearchHit> hits = index.search("grant", null, 5);
+        assertEquals(5, hits.size());
+        assertTrue(hits.stream().allMatch(hit -> hit.getId() % 10 == 0));
+        assertEquals(List.of(42L), ids(index.search("application 42", null, 5)));
+    }
+
+    @Test
+    void testAdvanceFindsFirstDocumentNotBelowTarget() {
+        PostingList list = new PostingList();
+        for (int doc = 0; doc < 100; doc += 3) {
+            list.add(doc, 1);
+        }
+
+        assertEquals(0, list.advance(0, 0));
+        assertEquals(1, list.advance(0, 1));
+        assertEquals(17, list.advance(2, 50));
+        assertEquals(33, list.advance(10, 99));
+        assertEquals(list.size(), list.advance(10, 100));
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+package com.maciek.home.applicationservice.search;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.CompressedContentConverter;
+import com.maciek.home.applicationservice.model.SearchHit;
+import com.maciek.home.applicationservice.sevice.ApplicationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class SearchIndexTest {
+
+    @Autowired
+    private ApplicationService service;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CompressedContentConverter contentConverter;
+
+    @Test
+    void testCommittedWritesAreSearchable() throws Exception {
+        Application application = new Application(null, "Observatory", "Telescope dome renovation", CREATED, null);
+        service.createNew(application);
+        long id = application.getId();
+        assertEquals(List.of(id), ids(service.search("telescope", null, null)));
+
+        service.updateById(id, new Application(null, "Observatory", "Planetarium projector", null, null));
+        assertEquals(List.of(), ids(service.search("telescope", null, null)));
+        assertEquals(List.of(id), ids(service.search("planetarium", null, null)));
+
+        service.verifyById(id, null);
+        assertEquals(List.of(id), ids(service.search("observatory", "verified", null)));
+        assertEquals(List.of(), ids(service.search("observatory", CREATED.name(), null)));
+        assertEquals(VERIFIED, service.search("observatory", null, null).get(0).getState());
+    }
+
+    @Test
+    void testRolledBackUpdateAndDeleteAreNotSearchable() throws Exception {
+        Application application = new Application(null, "Aquarium", "Coral reef tank", CREATED, null);
+        service.createNew(application);
+        long id = application.getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.updateById(id, new Application(null, "Aquarium", "Shark tunnel", null, null));
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(), ids(service.search("shark", null, null)));
+        assertEquals(List.of(id), ids(service.search("coral", null, null)));
+
+        service.deleteById(id, null);
+        assertEquals(List.of(), ids(service.search("coral", null, null)));
+    }
+
+    @Test
+    void testRebuildPicksUpRowsWrittenBehindTheService() {
+        jdbcTemplate.update("insert into application (id, name, content, state, version) values (?, ?, ?, ?, 0)",
+                90_000_001L, "Lighthouse", contentConverter.convertToDatabaseColumn("Lens restoration"), CREATED.ordinal());
+        assertEquals(List.of(), ids(service.search("lighthouse", null, null)));
+
+        searchIndex.rebuild();
+        assertEquals(List.of(90_000_001L), ids(service.search("lighthouse lens", null, null)));
+    }
+
+    @Test
+    void testInvalidQueries() {
+        assertThrows(IllegalArgumentException.class, () -> service.search(" ", null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.search("coral", "archived", null));
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+}
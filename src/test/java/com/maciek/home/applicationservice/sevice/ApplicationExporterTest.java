@@ -0,0 +1,96 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ExportFormat;
+import com.maciek.home.applicationservice.model.ExportReport;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class ApplicationExporterTest {
+
+    @TempDir
+    static Path exportDirectory;
+
+    @DynamicPropertySource
+    static void exportProperties(DynamicPropertyRegistry registry) {
+        registry.add("applications.export.directory", () -> exportDirectory.toString());
+    }
+
+    @Autowired
+    private ApplicationExporter exporter;
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testExportGzippedNdjson() throws Exception {
+        ExportReport report = exporter.export(ExportFormat.NDJSON, true);
+
+        Path file = Path.of(report.getFile());
+        assertTrue(file.getFileName().toString().endsWith(".ndjson.gz"));
+        assertEquals(Files.size(file), report.getBytes());
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertEquals(repository.count(), report.getRows());
+        assertEquals(report.getRows(), lines.size());
+        assertEquals(repository.findAll().stream().map(Application::getName).sorted().collect(Collectors.toList()),
+                lines.stream().map(this::name).sorted().collect(Collectors.toList()));
+        // Nothing but the finished dump is left behind
+        assertTrue(Files.list(exportDirectory).noneMatch(path -> path.toString().endsWith(".part")));
+    }
+
+    @Test
+    void testExportCsv() throws Exception {
+        ExportReport report = exporter.export(ExportFormat.CSV, false);
+
+        List<CSVRecord> records;
+        try (CSVParser parser = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build()
+                .parse(Files.newBufferedReader(Path.of(report.getFile())))) {
+            records = parser.getRecords();
+        }
+        assertEquals(repository.count(), records.size());
+        Application first = repository.findById(Long.valueOf(records.get(0).get("id"))).orElseThrow();
+        assertEquals(first.getName(), records.get(0).get("name"));
+        assertEquals(first.getState().name(), records.get(0).get("state"));
+        assertTrue(report.getRowsPerSecond() > 0);
+    }
+
+    private String name(String line) {
+        try {
+            return objectMapper.readValue(line, Application.class).getName();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
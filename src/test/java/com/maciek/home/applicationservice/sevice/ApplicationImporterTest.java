@@ -0,0 +1,161 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ImportReport;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"applications.import.batch-size=2", "applications.import.max-errors=2",
+        "applications.import.max-line-length=100"})
+@ExtendWith(SpringExtension.class)
+class ApplicationImporterTest {
+
+    @Autowired
+    private ApplicationImporter importer;
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    // The importer commits its own batches, so imported rows are removed by hand
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll(imported());
+    }
+
+    @Test
+    void testImportNdjson() throws Exception {
+        ImportReport report = importer.importNdjson(stream(
+                "{\"name\":\"ImportA\",\"content\":\"a\"}\n"
+                        + "\n"
+                        + "{\"name\":\"ImportB\",\"content\":\"b\",\"state\":\"CREATED\"}\n"
+                        + "{\"name\":\"ImportC\"}\n"
+                        + "{not json\n"
+                        + "{\"id\":1,\"name\":\"ImportD\",\"content\":\"d\"}\n"));
+
+        assertEquals(3, report.getAccepted());
+        assertEquals(2, report.getRejected());
+        assertEquals(4, report.getErrors().get(0).getLine());
+        assertEquals(5, report.getErrors().get(1).getLine());
+        assertFalse(report.isErrorsTruncated());
+
+        List<Application> imported = imported();
+        assertEquals(List.of("ImportA", "ImportB", "ImportD"),
+                imported.stream().map(Application::getName).sorted().collect(Collectors.toList()));
+        assertTrue(imported.stream().allMatch(a -> a.getState() == CREATED));
+        // A client supplied id is ignored
+        assertTrue(imported.stream().noneMatch(a -> a.getId() == 1L && a.getName().equals("ImportD")));
+    }
+
+    // Other states would skip what the transitions do, like the outbox row of a publish
+    @Test
+    void testImportAcceptsOnlyCreated() throws Exception {
+        ImportReport report = importer.importNdjson(stream(
+                "{\"name\":\"ImportA\",\"content\":\"a\",\"state\":\"PUBLISHED\"}\n"
+                        + "{\"name\":\"ImportB\",\"content\":\"b\",\"state\":\"REJECTED\"}\n"
+                        + "{\"name\":\"ImportC\",\"content\":\"c\",\"rejectionReason\":\"Incomplete\"}\n"));
+
+        assertEquals(0, report.getAccepted());
+        assertEquals(3, report.getRejected());
+        assertEquals("Imported applications start as CREATED, not PUBLISHED", report.getErrors().get(0).getMessage());
+        assertEquals(List.of(), imported());
+    }
+
+    @Test
+    void testImportRejectsNullLine() throws Exception {
+        ImportReport report = importer.importNdjson(stream("null\n{\"name\":\"ImportA\",\"content\":\"a\"}\n"));
+
+        assertEquals(1, report.getAccepted());
+        assertEquals(1, report.getRejected());
+        assertEquals(1, report.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void testImportSkipsTooLongNdjsonLine() throws Exception {
+        String longLine = "{\"name\":\"ImportA\",\"content\":\"" + "a".repeat(100) + "\"}\n";
+        ImportReport report = importer.importNdjson(stream(
+                "{\"name\":\"ImportB\",\"content\":\"b\"}\n" + longLine + "{\"name\":\"ImportC\",\"content\":\"c\"}"));
+
+        assertEquals(2, report.getAccepted());
+        assertEquals(1, report.getRejected());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertFalse(report.isStopped());
+        assertEquals(2, imported().size());
+    }
+
+    // CSV records may span lines, so the import ends there and reports what it committed before
+    @Test
+    void testImportStopsAtTooLongCsvLine() throws Exception {
+        ImportReport report = importer.importCsv(stream(
+                "name,content\nImportA,a\nImportB,b\nImportC,c\nImportD," + "d".repeat(100) + "\nImportE,e\n"));
+
+        assertEquals(3, report.getAccepted());
+        assertEquals(1, report.getRejected());
+        assertEquals("Line 5 is longer than 100 characters", report.getErrors().get(0).getMessage());
+        assertTrue(report.isStopped());
+        assertEquals(3, imported().size());
+    }
+
+    @Test
+    void testImportStopsAtMalformedCsv() throws Exception {
+        ImportReport report = importer.importCsv(stream("name,content\nImportA,a\nImportB,\"unterminated\n"));
+
+        assertEquals(1, report.getAccepted());
+        assertEquals(1, report.getRejected());
+        assertTrue(report.isStopped());
+    }
+
+    @Test
+    void testImportCsv() throws Exception {
+        ImportReport report = importer.importCsv(stream(
+                "name,content,state\n"
+                        + "ImportA,a,\n"
+                        + "ImportB,\"b, quoted\",CREATED\n"
+                        + ",missing name,\n"
+                        + "ImportC,c,ARCHIVED\n"
+                        + "ImportD,,\n"
+                        + "ImportE,e,VERIFIED\n"));
+
+        assertEquals(2, report.getAccepted());
+        assertEquals(4, report.getRejected());
+        assertEquals(2, report.getErrors().size());
+        assertEquals(4, report.getErrors().get(0).getLine());
+        assertTrue(report.isErrorsTruncated());
+
+        List<Application> imported = imported();
+        assertEquals(2, imported.size());
+        assertTrue(imported.stream().anyMatch(a -> a.getState() == CREATED && a.getName().equals("ImportA")));
+        assertTrue(imported.stream().anyMatch(a -> a.getContent().equals("b, quoted")));
+    }
+
+    @Test
+    void testImportCsvWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class, () -> importer.importCsv(stream("title,content\nA,a\n")));
+    }
+
+    private List<Application> imported() {
+        return repository.findAllWithContent().stream()
+                .filter(application -> application.getName().startsWith("Import"))
+                .collect(Collectors.toList());
+    }
+
+    private InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
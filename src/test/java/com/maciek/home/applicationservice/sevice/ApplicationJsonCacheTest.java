@@ -0,0 +1,72 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciek.home.applicationservice.config.JsonCacheProperties;
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.events.ChangeType;
+import com.maciek.home.applicationservice.model.Application;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ApplicationJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+    private ApplicationJsonCache jsonCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jsonCache = new ApplicationJsonCache(objectMapper, new JsonCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    void testSameVersionIsSerializedOnce() throws Exception {
+        Application application = new Application(1L, "Bakery", "Opening a bakery", CREATED, null, 3L);
+
+        byte[] json = jsonCache.json(application);
+        assertArrayEquals(objectMapper.writeValueAsBytes(application), json);
+        assertSame(json, jsonCache.json(new Application(1L, "Bakery", "Opening a bakery", CREATED, null, 3L)));
+        assertEquals(json.length, meterRegistry.get("applications.json.cache.bytes").gauge().value());
+    }
+
+    @Test
+    void testNewVersionIsSerializedAgain() throws Exception {
+        byte[] created = jsonCache.json(new Application(1L, "Bakery", "Opening a bakery", CREATED, null, 3L));
+        Application verified = new Application(1L, "Bakery", "Opening a bakery", VERIFIED, null, 4L);
+
+        byte[] json = jsonCache.json(verified);
+        assertNotSame(created, json);
+        assertArrayEquals(objectMapper.writeValueAsBytes(verified), json);
+    }
+
+    @Test
+    void testCommittedChangeDropsEntry() {
+        Application application = new Application(1L, "Bakery", "Opening a bakery", CREATED, null, 3L);
+        byte[] json = jsonCache.json(application);
+
+        jsonCache.onChange(new ApplicationChangedEvent(1L, ChangeType.UPDATED, CREATED, CREATED));
+        assertNotSame(json, jsonCache.json(application));
+    }
+
+    @Test
+    void testArrayJoinsCachedJson() throws Exception {
+        List<Application> applications = List.of(
+                new Application(1L, "Bakery", "Opening a bakery", CREATED, null, 3L),
+                new Application(2L, "Kiosk", "Newspaper kiosk", VERIFIED, null, null),
+                new Application(3L, "Garage", "Car repair \"garage\"", CREATED, null, 0L));
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(applications), jsonCache.jsonArray(applications));
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of()), jsonCache.jsonArray(List.of()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.config.CacheConfig;
+import com.maciek.home.applicationservice.config.NearCacheProperties;
+import com.maciek.home.applicationservice.model.Application;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ApplicationNearCacheTest {
+
+    private ApplicationNearCache nearCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        nearCache = new ApplicationNearCache(new CaffeineCacheManager(CacheConfig.APPLICATIONS_CACHE));
+    }
+
+    @Test
+    void testCallersGetTheirOwnCopies() {
+        Application loaded = new Application(1L, "Bakery", "Opening a bakery", CREATED, null, 3L);
+
+        Application first = nearCache.get(1L, id -> load(loaded));
+        first.setName("Changed by a caller");
+        Application second = nearCache.get(1L, id -> load(loaded));
+
+        assertEquals(1, loads.get());
+        assertNotSame(loaded, first);
+        assertEquals("Bakery", second.getName());
+        assertEquals(3L, second.getVersion());
+    }
+
+    // The row was read before a write committed and the load finishes after the commit dropped the entry
+    @Test
+    void testLoadRacingWithCommitIsNotCached() {
+        Application before = new Application(1L, "Bakery", "Opening a bakery", CREATED, null, 3L);
+        Application after = new Application(1L, "Bakery", "Opening a bakery", VERIFIED, null, 4L);
+
+        Application stale = nearCache.get(1L, id -> {
+            nearCache.invalidate(id);
+            return load(before);
+        });
+        assertEquals(CREATED, stale.getState());
+        assertEquals(VERIFIED, nearCache.get(1L, id -> load(after)).getState());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testMissRacingWithCreateIsNotCached() {
+        assertNull(nearCache.get(2L, id -> {
+            nearCache.invalidate(id);
+            return load(null);
+        }));
+        Application created = new Application(2L, "Kiosk", "Newspaper kiosk", CREATED, null, 0L);
+        assertEquals("Kiosk", nearCache.get(2L, id -> load(created)).getName());
+    }
+
+    @Test
+    void testMissIsLoadedAgainWhenMissesAreNotCached() {
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setCacheMissing(false);
+        nearCache = new ApplicationNearCache(new CacheConfig().cacheManager(properties));
+
+        assertNull(nearCache.get(3L, id -> load(null)));
+        assertNull(nearCache.get(3L, id -> load(null)));
+        assertEquals(2, loads.get());
+    }
+
+    private Optional<Application> load(Application application) {
+        loads.incrementAndGet();
+        return Optional.ofNullable(application);
+    }
+}
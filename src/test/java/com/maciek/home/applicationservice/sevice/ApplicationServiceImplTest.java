@@ -1,19 +1,34 @@
 package com.maciek.home.applicationservice.sevice;
 
+import com.maciek.home.applicationservice.config.CacheConfig;
 import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.ApplicationRevision;
+import com.maciek.home.applicationservice.model.RevisionPage;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.Transition;
+import com.maciek.home.applicationservice.model.TransitionOutcome;
+import com.maciek.home.applicationservice.model.TransitionResult;
 import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.envers.RevisionType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.rmi.ServerException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static com.maciek.home.applicationservice.model.State.ACCEPTED;
 import static com.maciek.home.applicationservice.model.State.CREATED;
@@ -23,7 +38,13 @@ import static com.maciek.home.applicationservice.model.State.VERIFIED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -36,28 +57,57 @@ class ApplicationServiceImplTest {
     @Autowired
     private ApplicationService underTest;// = new ApplicationServiceImpl(repository);
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Application application;
     ArrayList<Application> applicationsList;
 
     @BeforeEach
     void setUp() {
         applicationsList = new ArrayList<>();
+        cacheManager.getCache(CacheConfig.APPLICATIONS_CACHE).clear();
     }
 
     @Test
     void testFindById() {
         application = new Application(1L, "TestNameA", "Test Content", CREATED, "");
-        when(repository.findById(1L)).thenReturn(java.util.Optional.of(application));
+        when(repository.findWithContentById(1L)).thenReturn(java.util.Optional.of(application));
         assertEquals(application, underTest.findById(1L));
         assertEquals("TestNameA", underTest.findById(1L).getName());
     }
 
+    @Test
+    void testFindByIdIsCached() {
+        application = new Application(1L, "TestNameA", "Test Content", CREATED, "");
+        when(repository.findWithContentById(1L)).thenReturn(java.util.Optional.of(application));
+        underTest.findById(1L);
+        underTest.findById(1L);
+        verify(repository, times(1)).findWithContentById(1L);
+    }
+
+    @Test
+    void testFindByIdCachesMissingAndEvictsOnChange() {
+        when(repository.findWithContentById(5L)).thenReturn(java.util.Optional.empty());
+        assertNull(underTest.findById(5L));
+        assertNull(underTest.findById(5L));
+        verify(repository, times(1)).findWithContentById(5L);
+
+        when(repository.transition(5L, Transition.VERIFY, null, null)).thenReturn(TransitionResult.applied(CREATED));
+        underTest.verifyById(5L, null);
+        underTest.findById(5L);
+        verify(repository, times(2)).findWithContentById(5L);
+    }
+
     @Test
     void testFindAll() {
         applicationsList.add(new Application(1L, "TestNameB", "Test Content", CREATED, ""));
         applicationsList.add(new Application(2L, "TestNameC", "Test Content", CREATED, ""));
         applicationsList.add(new Application(3L, "TestNameA", "Test Content", CREATED, ""));
-        when(repository.findAll()).thenReturn(applicationsList);
+        when(repository.findAllWithContent()).thenReturn(applicationsList);
 
         List<Application> resultList = underTest.findAll();
         assertNotNull(resultList);
@@ -65,34 +115,117 @@ class ApplicationServiceImplTest {
         assertEquals("TestNameA", resultList.get(2).getName());
     }
 
+    @Test
+    void testCountByStateFollowsTransitions() {
+        Map<State, Long> before = underTest.countByState();
+        when(repository.transition(6L, Transition.REJECT, "Incomplete", null)).thenReturn(TransitionResult.applied(ACCEPTED));
+        underTest.rejectById(6L, new Application(6L, "", "", ACCEPTED, "Incomplete"), null);
+
+        Map<State, Long> after = underTest.countByState();
+        assertEquals(before.get(ACCEPTED) - 1, after.get(ACCEPTED));
+        assertEquals(before.get(REJECTED) + 1, after.get(REJECTED));
+    }
+
+    @Test
+    void testStreamAll() {
+        applicationsList.add(new Application(1L, "TestNameB", "Test Content", CREATED, ""));
+        applicationsList.add(new Application(2L, "TestNameC", "Test Content", CREATED, ""));
+        when(repository.streamAll()).thenReturn(applicationsList.stream());
+
+        List<Application> streamed = new ArrayList<>();
+        assertEquals(2, underTest.streamAll(streamed::add));
+        assertEquals("TestNameC", streamed.get(1).getName());
+    }
+
     @Test
     void testFindAllOrderByName() {
         applicationsList.add(new Application(2L, "TestNameC", "Test Content", CREATED, ""));
         applicationsList.add(new Application(1L, "TestNameB", "Test Content", CREATED, ""));
         applicationsList.add(new Application(3L, "TestNameA", "Test Content", CREATED, ""));
-        when(repository.findAllByOrderByNameDesc(PageRequest.of(0, 10))).thenReturn(applicationsList);
+        when(repository.findAllByOrderByNameDescIdDesc(PageRequest.of(0, 10))).thenReturn(applicationsList);
 
-        List<Application> resultList = underTest.findAllOrderByName("desc", 0);
+        List<Application> resultList = underTest.findAllOrderByName("desc", 0, null).getContent();
         assertNotNull(resultList);
         assertEquals(3, resultList.size());
         assertEquals("TestNameA", resultList.get(2).getName());
 
     }
 
+    @Test
+    void testFindAllOrderByNameFullPageHasCursor() {
+        applicationsList.add(new Application(1L, "TestNameA", "Test Content", CREATED, ""));
+        applicationsList.add(new Application(2L, "TestNameB", "Test Content", CREATED, ""));
+        when(repository.findAllByOrderByNameAscIdAsc(PageRequest.of(0, 2))).thenReturn(applicationsList);
+
+        ApplicationPage page = underTest.findAllOrderByName("asc", 0, 2);
+        assertEquals(new PageCursor("name", 2L, "TestNameB").encode(), page.getNextCursor());
+    }
+
+    @Test
+    void testSeekAllOrderByName() {
+        applicationsList.add(new Application(7L, "TestNameC", "Test Content", CREATED, ""));
+        String after = new PageCursor("name", 2L, "TestNameB").encode();
+        when(repository.findNameAscAfter("TestNameB", 2L, PageRequest.of(0, 5))).thenReturn(applicationsList);
+
+        ApplicationPage page = underTest.seekAllOrderByName("asc", after, 5);
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testFindHistory() {
+        Instant now = Instant.now();
+        List<ApplicationRevision> revisions = List.of(
+                new ApplicationRevision(9, RevisionType.MOD, now, "TestNameA", REJECTED, "Too short", "Test Content"),
+                new ApplicationRevision(7, RevisionType.MOD, now, "TestNameA", VERIFIED, null, "Test Content"),
+                new ApplicationRevision(4, RevisionType.MOD, now, "TestNameA", CREATED, null, "Old Content"));
+        String after = new PageCursor("revision", 12L, "").encode();
+        when(repository.findRevisions(1L, 12, 3)).thenReturn(revisions);
+
+        RevisionPage page = underTest.findHistory(1L, after, 2);
+        assertEquals(2, page.getContent().size());
+        assertEquals(List.of("state", "rejectionReason"), page.getContent().get(0).getChanges());
+        assertNull(page.getContent().get(0).getContent());
+        assertEquals(List.of("content", "state"), page.getContent().get(1).getChanges());
+        assertEquals("Test Content", page.getContent().get(1).getContent());
+        assertEquals(new PageCursor("revision", 7L, "").encode(), page.getNextCursor());
+    }
+
+    @Test
+    void testSeekAllOrderByStateWithNameCursor() {
+        String after = new PageCursor("name", 2L, "TestNameB").encode();
+        assertThrows(IllegalArgumentException.class, () -> underTest.seekAllOrderByState("asc", after, 5));
+    }
+
+    @Test
+    void testFindAllOrderByNameUnknownSort() {
+        assertThrows(IllegalArgumentException.class, () -> underTest.findAllOrderByName("sideways", 0, null));
+    }
+
     @Test
     void testFindAllOrderByState() {
         applicationsList.add(new Application(2L, "TestNameC", "Test Content", CREATED, ""));
         applicationsList.add(new Application(3L, "TestNameA", "Test Content", CREATED, ""));
         applicationsList.add(new Application(1L, "TestNameB", "Test Content", REJECTED, ""));
-        when(repository.findAllByOrderByStateAsc(PageRequest.of(0, 10))).thenReturn(applicationsList);
+        when(repository.findAllByOrderByStateAscIdAsc(PageRequest.of(0, 10))).thenReturn(applicationsList);
 
-        List<Application> resultList = underTest.findAllOrderByState("asc", 0);
+        List<Application> resultList = underTest.findAllOrderByState("asc", 0, null).getContent();
         assertNotNull(resultList);
         assertEquals(3, resultList.size());
         assertEquals(CREATED, resultList.get(0).getState());
         assertEquals(REJECTED, resultList.get(2).getState());
     }
 
+    @Test
+    void testSeekAllOrderByState() {
+        applicationsList.add(new Application(4L, "TestNameC", "Test Content", REJECTED, ""));
+        String after = new PageCursor("state", 3L, "VERIFIED").encode();
+        when(repository.findStateAscAfter(VERIFIED, 3L, PageRequest.of(0, 1))).thenReturn(applicationsList);
+
+        ApplicationPage page = underTest.seekAllOrderByState("asc", after, 1);
+        assertEquals(new PageCursor("state", 4L, "REJECTED").encode(), page.getNextCursor());
+    }
+
     @Test
     void testCreateNew() throws ServerException {
         application = new Application(1L, "TestNameA", "Test Content", CREATED, "");
@@ -107,80 +240,129 @@ class ApplicationServiceImplTest {
 
     @Test
     void testDeleteById() {
-        application = new Application(3L, "TestNameA", "Test Content", CREATED, "");
-        when(repository.findById(3L)).thenReturn(java.util.Optional.of(application));
-        assertTrue(underTest.deleteById(3L));
+        when(repository.deleteInState(3L, CREATED, null)).thenReturn(true);
+        assertTrue(underTest.deleteById(3L, null));
     }
     @Test
     void testDeleteByIdWrongState() {
-        application = new Application(3L, "TestNameA", "Test Content", VERIFIED, "");
-        when(repository.findById(3L)).thenReturn(java.util.Optional.of(application));
-        assertFalse(underTest.deleteById(3L));
+        when(repository.deleteInState(3L, CREATED, null)).thenReturn(false);
+        when(repository.findStateById(3L)).thenReturn(java.util.Optional.of(VERIFIED));
+        assertFalse(underTest.deleteById(3L, null));
     }
 
     @Test
     void testUpdateById() {
         application = new Application(3L, "Updated Name", "Updated Content", VERIFIED, "");
-        when(repository.findById(3L)).thenReturn(java.util.Optional.of(application));
+        when(repository.findWithContentById(3L)).thenReturn(java.util.Optional.of(application));
         assertTrue(underTest.updateById(3L, application));
     }
     @Test
     void testUpdateByIdWrongState() {
         application = new Application(3L, "Updated Name", "Updated Content", REJECTED, "");
-        when(repository.findById(3L)).thenReturn(java.util.Optional.of(application));
+        when(repository.findWithContentById(3L)).thenReturn(java.util.Optional.of(application));
         assertFalse(underTest.updateById(3L, application));
     }
 
+    @Test
+    void testUpdateByIdStaleVersion() {
+        application = new Application(3L, "Updated Name", "Updated Content", VERIFIED, "", 2L);
+        when(repository.findWithContentById(3L)).thenReturn(java.util.Optional.of(application));
+        Application update = new Application(3L, "Updated Name", "Updated Content", VERIFIED, "", 1L);
+        assertThrows(OptimisticLockingFailureException.class, () -> underTest.updateById(3L, update));
+    }
+
     @Test
     void testRejectById() {
         application = new Application(3L, "TestNameA", "", VERIFIED, "Application don't met requirements");
-        when(repository.findById(3L)).thenReturn(java.util.Optional.of(application));
-        assertTrue(underTest.rejectById(3L, application));
+        when(repository.transition(3L, Transition.REJECT, "Application don't met requirements", null)).thenReturn(TransitionResult.applied(VERIFIED));
+        assertTrue(underTest.rejectById(3L, application, null));
     }
     @Test
     void testRejectByIdWrongState() {
         application = new Application(3L, "", "", PUBLISHED, "Application don't met requirements");
-        when(repository.findById(3L)).thenReturn(java.util.Optional.of(application));
-        assertFalse(underTest.rejectById(3L, application));
+        when(repository.transition(3L, Transition.REJECT, "Application don't met requirements", null)).thenReturn(TransitionResult.wrongState(PUBLISHED));
+        assertFalse(underTest.rejectById(3L, application, null));
+    }
+    @Test
+    void testRejectByIdWithoutReason() {
+        application = new Application(3L, "", "", VERIFIED, "");
+        assertFalse(underTest.rejectById(3L, application, null));
+        verify(repository, never()).transition(3L, Transition.REJECT, "", null);
     }
 
     @Test
     void testVerifyById() {
-        application = new Application(2L, "TestNameA", "Test Content", CREATED, "Application don't met requirements");
-        when(repository.findById(2L)).thenReturn(java.util.Optional.of(application));
-        assertTrue(underTest.verifyById(2L));
+        when(repository.transition(2L, Transition.VERIFY, null, null)).thenReturn(TransitionResult.applied(CREATED));
+        assertTrue(underTest.verifyById(2L, null));
     }
     @Test
     void testVerifyByIdWrongState() {
-        application = new Application(2L, "TestNameA", "Test Content", VERIFIED, "Application don't met requirements");
-        when(repository.findById(2L)).thenReturn(java.util.Optional.of(application));
-        assertFalse(underTest.verifyById(2L));
+        when(repository.transition(2L, Transition.VERIFY, null, null)).thenReturn(TransitionResult.wrongState(VERIFIED));
+        assertFalse(underTest.verifyById(2L, null));
+    }
+
+    @Test
+    void testVerifyByIdCountsOutcomes() {
+        double applied = transitionCount("APPLIED");
+        double wrongState = transitionCount("WRONG_STATE");
+        double notFound = transitionCount("NOT_FOUND");
+        when(repository.transition(2L, Transition.VERIFY, null, null)).thenReturn(TransitionResult.applied(CREATED));
+        when(repository.transition(3L, Transition.VERIFY, null, null)).thenReturn(TransitionResult.wrongState(VERIFIED));
+        when(repository.transition(4L, Transition.VERIFY, null, null)).thenReturn(TransitionResult.notFound());
+
+        underTest.verifyById(2L, null);
+        underTest.verifyById(3L, null);
+        underTest.verifyById(4L, null);
+        assertEquals(applied + 1, transitionCount("APPLIED"));
+        assertEquals(wrongState + 1, transitionCount("WRONG_STATE"));
+        assertEquals(notFound + 1, transitionCount("NOT_FOUND"));
     }
 
     @Test
     void testAcceptById() {
-        application = new Application(2L, "TestNameA", "Test Content", VERIFIED, "Application don't met requirements");
-        when(repository.findById(2L)).thenReturn(java.util.Optional.of(application));
-        assertTrue(underTest.acceptById(2L));
+        when(repository.transition(2L, Transition.ACCEPT, null, null)).thenReturn(TransitionResult.applied(VERIFIED));
+        assertTrue(underTest.acceptById(2L, null));
     }
     @Test
     void testAcceptByIdWrongState() {
-        application = new Application(2L, "TestNameA", "Test Content", CREATED, "Application don't met requirements");
-        when(repository.findById(2L)).thenReturn(java.util.Optional.of(application));
-        assertFalse(underTest.acceptById(2L));
+        when(repository.transition(2L, Transition.ACCEPT, null, null)).thenReturn(TransitionResult.wrongState(CREATED));
+        assertFalse(underTest.acceptById(2L, null));
     }
 
     @Test
     void testPublishById() {
-        application = new Application(2L, "TestNameA", "Test Content", ACCEPTED, "Application don't met requirements");
-        when(repository.findById(2L)).thenReturn(java.util.Optional.of(application));
-        assertTrue(underTest.publishById(2L));
+        when(repository.transition(2L, Transition.PUBLISH, null, null)).thenReturn(TransitionResult.applied(ACCEPTED));
+        assertTrue(underTest.publishById(2L, null));
     }
 
     @Test
     void testPublishByIdWrongState() {
-        application = new Application(2L, "TestNameA", "Test Content", VERIFIED, "Application don't met requirements");
-        when(repository.findById(2L)).thenReturn(java.util.Optional.of(application));
-        assertFalse(underTest.publishById(2L));
+        when(repository.transition(2L, Transition.PUBLISH, null, null)).thenReturn(TransitionResult.wrongState(VERIFIED));
+        assertFalse(underTest.publishById(2L, null));
+    }
+
+    @Test
+    void testTransitionAll() {
+        when(repository.transitionAll(List.of(2L, 3L, 4L), Transition.ACCEPT, null)).thenReturn(Map.of(2L, VERIFIED, 3L, CREATED));
+        Map<Long, TransitionOutcome> outcomes = underTest.transitionAll(Transition.ACCEPT, List.of(2L, 3L, 4L), null);
+        assertEquals(TransitionOutcome.APPLIED, outcomes.get(2L));
+        assertEquals(TransitionOutcome.WRONG_STATE, outcomes.get(3L));
+        assertEquals(TransitionOutcome.NOT_FOUND, outcomes.get(4L));
+    }
+
+    @Test
+    void testTransitionAllRejectWithoutReason() {
+        assertThrows(IllegalArgumentException.class, () -> underTest.transitionAll(Transition.REJECT, List.of(2L), " "));
+    }
+
+    @Test
+    void testTransitionAllRejectsNullIds() {
+        assertThrows(IllegalArgumentException.class, () -> underTest.transitionAll(Transition.VERIFY, Arrays.asList(2L, null), null));
+        verify(repository, never()).transitionAll(any(), any(), any());
+    }
+
+    private double transitionCount(String outcome) {
+        return meterRegistry.get("applications.transitions").tag("transition", "VERIFY").tag("outcome", outcome)
+                .counter().count();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationPage;
+import com.maciek.home.applicationservice.model.ApplicationSummary;
+import com.maciek.home.applicationservice.model.SummaryPage;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+class ApplicationSummaryViewTest {
+
+    private static final String NAME_PREFIX = "Summary view ";
+
+    @Autowired
+    private ApplicationService service;
+
+    @Autowired
+    private ApplicationRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (repository.findAll().stream().noneMatch(application -> application.getName().startsWith(NAME_PREFIX))) {
+            for (int i = 0; i < 10; i++) {
+                service.createNew(new Application(null, NAME_PREFIX + i, "x".repeat(250), CREATED, null));
+            }
+        }
+    }
+
+    @Test
+    void testSummaryPagesFollowTheFullPages() {
+        ApplicationPage full = service.findAllOrderByName("asc", 1, 3);
+        SummaryPage summaries = service.findSummariesOrderByName("asc", 1, 3);
+        assertEquals(ids(full.getContent()), summaryIds(summaries.getContent()));
+        assertEquals(full.getNextCursor(), summaries.getNextCursor());
+
+        full = service.seekAllOrderByState("desc", service.findAllOrderByState("desc", 0, 4).getNextCursor(), 4);
+        summaries = service.seekSummariesOrderByState("desc", service.findSummariesOrderByState("desc", 0, 4).getNextCursor(), 4);
+        assertEquals(ids(full.getContent()), summaryIds(summaries.getContent()));
+        assertEquals(full.getNextCursor(), summaries.getNextCursor());
+    }
+
+    @Test
+    void testSummariesLoadNoEntities() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            List<ApplicationSummary> summaries = repository.findSummariesByNameAsc(PageRequest.of(0, 10));
+            assertEquals(10, summaries.size());
+            assertEquals(0, session.getStatistics().getEntityCount());
+
+            repository.findAllByOrderByNameAscIdAsc(PageRequest.of(0, 10));
+            assertEquals(10, session.getStatistics().getEntityCount());
+        });
+    }
+
+    @Test
+    void testSummaryResponseIsAFractionOfTheFullOne() throws Exception {
+        // Right before the generated applications in name order
+        String after = new PageCursor("name", 0, NAME_PREFIX).encode();
+        String full = mockMvc.perform(get("/applications/name/asc").param("after", after).param("limit", "10"))
+                .andReturn().getResponse().getContentAsString();
+        String summary = mockMvc.perform(get("/applications/name/asc").param("after", after).param("limit", "10")
+                        .param("view", "summary"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(full.contains(NAME_PREFIX + "0") && summary.contains(NAME_PREFIX + "0"));
+        assertTrue(summary.length() * 4 < full.length(), summary.length() + " bytes of " + full.length());
+    }
+
+    private static List<Long> ids(List<Application> applications) {
+        return applications.stream().map(Application::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> summaryIds(List<ApplicationSummary> summaries) {
+        return summaries.stream().map(ApplicationSummary::getId).collect(Collectors.toList());
+    }
+}
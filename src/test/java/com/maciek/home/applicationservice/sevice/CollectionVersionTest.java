@@ -0,0 +1,97 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.model.Application;
+import com.maciek.home.applicationservice.model.ApplicationView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.Transition.VERIFY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+class CollectionVersionTest {
+
+    @Autowired
+    private CollectionVersion collectionVersion;
+
+    @Autowired
+    private ApplicationService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testInstancesOnTheSameDatabaseAgree() throws Exception {
+        // A second instance of the service only shares the database
+        CollectionVersion otherInstance = new CollectionVersion(jdbcTemplate, transactionManager);
+        assertEquals(collectionVersion.etag(), otherInstance.etag());
+
+        String before = otherInstance.etag();
+        service.createNew(new Application(null, "Counted", "Moves the collection version", CREATED, null));
+        assertNotEquals(before, otherInstance.etag());
+        assertEquals(collectionVersion.etag(), otherInstance.etag());
+        assertEquals(collectionVersion.etag(ApplicationView.SUMMARY), otherInstance.etag(ApplicationView.SUMMARY));
+    }
+
+    @Test
+    void testEveryWriteMovesVersion() throws Exception {
+        Application application = new Application(null, "Moving", "Changed in every way", CREATED, null);
+        String before = collectionVersion.etag();
+        service.createNew(application);
+        String created = collectionVersion.etag();
+        assertNotEquals(before, created);
+
+        service.updateById(application.getId(), new Application(null, "Moved", "", CREATED, null));
+        String updated = collectionVersion.etag();
+        assertNotEquals(created, updated);
+
+        service.transitionAll(VERIFY, List.of(application.getId()), null);
+        assertNotEquals(updated, collectionVersion.etag());
+    }
+
+    @Test
+    void testTransactionMovesCounterOnce() throws Exception {
+        Application first = new Application(null, "First", "Created before the bulk transition", CREATED, null);
+        Application second = new Application(null, "Second", "Created before the bulk transition", CREATED, null);
+        service.createNew(first);
+        service.createNew(second);
+        long before = changes();
+
+        service.transitionAll(VERIFY, List.of(first.getId(), second.getId()), null);
+        assertEquals(before + 1, changes());
+    }
+
+    @Test
+    void testRolledBackWriteKeepsVersion() throws Exception {
+        Application application = new Application(null, "Rolled back", "Never verified", CREATED, null);
+        service.createNew(application);
+        String before = collectionVersion.etag();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.verifyById(application.getId(), null);
+            status.setRollbackOnly();
+        });
+        assertEquals(before, collectionVersion.etag());
+    }
+
+    private long changes() {
+        return jdbcTemplate.queryForObject("select changes from change_counter where name = 'application'", Long.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.maciek.home.applicationservice.sevice;
+
+import com.maciek.home.applicationservice.events.ApplicationChangedEvent;
+import com.maciek.home.applicationservice.events.ChangeType;
+import com.maciek.home.applicationservice.model.State;
+import com.maciek.home.applicationservice.model.StateCount;
+import com.maciek.home.applicationservice.repositories.ApplicationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.maciek.home.applicationservice.model.State.CREATED;
+import static com.maciek.home.applicationservice.model.State.VERIFIED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StateCountersTest {
+
+    private final ApplicationRepository repository = mock(ApplicationRepository.class);
+    private final StateCounters counters = new StateCounters(repository);
+
+    @Test
+    void testReconcileReplacesCounters() {
+        counters.onChange(new ApplicationChangedEvent(1L, ChangeType.CREATED, null, CREATED));
+        counters.onChange(new ApplicationChangedEvent(1L, ChangeType.CREATED, null, CREATED));
+        when(repository.countByState()).thenReturn(List.of(count(VERIFIED, 5)));
+
+        counters.reconcile();
+
+        assertEquals(0L, counters.snapshot().get(CREATED));
+        assertEquals(5L, counters.snapshot().get(VERIFIED));
+    }
+
+    // The change committed after the GROUP BY read the rows, its counts are outdated and must not overwrite it
+    @Test
+    void testReconcileRacingWithChangeCountsAgain() {
+        when(repository.countByState())
+                .thenAnswer(invocation -> {
+                    counters.onChange(new ApplicationChangedEvent(1L, ChangeType.CREATED, null, CREATED));
+                    return List.of();
+                })
+                .thenReturn(List.of(count(CREATED, 1)));
+
+        counters.reconcile();
+
+        verify(repository, times(2)).countByState();
+        assertEquals(1L, counters.snapshot().get(CREATED));
+    }
+
+    @Test
+    void testReconcileGivesUpWhileWritesKeepComing() {
+        when(repository.countByState()).thenAnswer(invocation -> {
+            counters.onChange(new ApplicationChangedEvent(1L, ChangeType.CREATED, null, CREATED));
+            return List.of();
+        });
+
+        counters.reconcile();
+
+        verify(repository, times(3)).countByState();
+        assertEquals(3L, counters.snapshot().get(CREATED));
+    }
+
+    private static StateCount count(State state, long total) {
+        return new StateCount() {
+            @Override
+            public State getState() {
+                return state;
+            }
+
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+}